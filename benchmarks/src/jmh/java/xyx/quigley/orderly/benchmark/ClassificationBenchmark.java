@@ -0,0 +1,62 @@
+package xyx.quigley.orderly.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyx.quigley.orderly.config.TypeFlagTable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the blacklist and boss checks of an entity, with the flag table and with an identifier string per check
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassificationBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private List<StandInEntity> entities;
+    private StandInConfig config;
+    private TypeFlagTable<StandInType> flags;
+
+    @Setup
+    public void setup() {
+        entities = StandInEntity.scatter(SAMPLES, 32.0D, 42L);
+        config = new StandInConfig();
+        flags = new TypeFlagTable<>(StandInType::getRawId, StandInType::toIdentifierString, id -> 0, () -> config);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int flagTable() {
+        int shown = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            byte value = flags.get(entities.get(i).type);
+            if ((value & TypeFlagTable.BLACKLISTED) == 0) {
+                shown += (value & TypeFlagTable.BOSS) != 0 ? 2 : 1;
+            }
+        }
+        return shown;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int identifierSets() {
+        int shown = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            var type = entities.get(i).type;
+            if (!config.getBlacklist().contains(type.toIdentifierString())) {
+                shown += config.getBosses().contains(type.toIdentifierString()) ? 2 : 1;
+            }
+        }
+        return shown;
+    }
+}
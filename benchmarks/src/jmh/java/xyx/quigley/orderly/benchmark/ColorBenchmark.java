@@ -0,0 +1,62 @@
+package xyx.quigley.orderly.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyx.quigley.orderly.util.HealthColor;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the bar color, by health fraction and by entity type, see {@code RenderUtil#getColor}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final float[] healths = new float[SAMPLES];
+    private final float[] maxHealths = new float[SAMPLES];
+    private final boolean[] monsters = new boolean[SAMPLES];
+    private final boolean[] bosses = new boolean[SAMPLES];
+
+    @Setup
+    public void setup() {
+        var random = new SplittableRandom(42L);
+        for (int i = 0; i < SAMPLES; i++) {
+            maxHealths[i] = 4.0F + random.nextInt(200) * 0.5F;
+            // includes overhealed and dead entities, both are clamped
+            healths[i] = (float) random.nextDouble(-2.0D, maxHealths[i] + 2.0D);
+            monsters[i] = random.nextBoolean();
+            bosses[i] = random.nextInt(20) == 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int byHealth() {
+        int hash = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            hash += HealthColor.getColor(healths[i], maxHealths[i], monsters[i], false, bosses[i]);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int byType() {
+        int hash = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            hash += HealthColor.getColor(healths[i], maxHealths[i], monsters[i], true, bosses[i]);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,130 @@
+package xyx.quigley.orderly.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyx.quigley.orderly.config.TypeFlagTable;
+import xyx.quigley.orderly.util.PlateBudget;
+import xyx.quigley.orderly.util.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * the all-entities pipeline: the per tick candidate collection of {@code RenderCandidates}
+ * and the per frame budget of {@code HealthBarRenderer}, for a growing number of loaded entities
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterPipelineBenchmark {
+
+    /**
+     * the loaded entities are spread over a 192 x 48 x 192 block area around the view point
+     */
+    private static final double HALF_EXTENT = 96.0D;
+    private static final int CELL_SHIFT = 4;
+
+    @Param({"100", "1000", "10000"})
+    public int entityCount;
+
+    private List<StandInEntity> entities;
+    private StandInConfig config;
+    private TypeFlagTable<StandInType> flags;
+    private SpatialGrid<StandInEntity> grid;
+    private final ArrayList<StandInEntity> candidates = new ArrayList<>();
+    private final PlateBudget budget = new PlateBudget();
+    private final Consumer<StandInEntity> collector = this::collect;
+
+    @Setup
+    public void setup() {
+        entities = StandInEntity.scatter(entityCount, HALF_EXTENT, 42L);
+        config = new StandInConfig();
+        flags = new TypeFlagTable<>(StandInType::getRawId, StandInType::toIdentifierString, id -> 0, () -> config);
+        grid = new SpatialGrid<>(CELL_SHIFT);
+        for (var entity : entities) {
+            grid.insert(entity, entity.x, entity.y, entity.z);
+        }
+        // leave the frame stage something to choose from
+        config.maxPlatesPerFrame = 16;
+        collectCandidates();
+    }
+
+    /**
+     * the candidates of a tick, looked up through the grid
+     */
+    @Benchmark
+    public int collectCandidates() {
+        candidates.clear();
+        grid.query(0.0D, 0.0D, 0.0D, config.getMaxDistance(), collector);
+        return candidates.size();
+    }
+
+    /**
+     * the candidates of a tick, from a scan over every loaded entity
+     */
+    @Benchmark
+    public int collectCandidatesLinear() {
+        candidates.clear();
+        for (int i = 0; i < entities.size(); i++) {
+            collect(entities.get(i));
+        }
+        return candidates.size();
+    }
+
+    /**
+     * picks the plates drawn in a frame when there are more candidates than the budget
+     */
+    @Benchmark
+    public boolean selectByPriority() {
+        int count = candidates.size();
+        budget.begin(count, config.getMaxPlatesPerFrame());
+        double maxDistanceSq = (double) config.getMaxDistance() * config.getMaxDistance();
+        for (int i = 0; i < count; i++) {
+            var entity = candidates.get(i);
+            budget.offer(i, entity.id, getPriority(entity, maxDistanceSq));
+        }
+        budget.select();
+        return count > 0 && budget.isSelected(0);
+    }
+
+    private void collect(StandInEntity entity) {
+        double maxDistance = config.getMaxDistance();
+        if (!entity.alive
+                || entity.hasPassengers
+                || entity.invisible
+                || entity.maxHealth <= 0.0F
+                || entity.squaredDistanceTo(0.0D, 0.0D, 0.0D) > maxDistance * maxDistance) {
+            return;
+        }
+        if (!config.canShowOnPlayers() && entity.type.isPlayer()) {
+            return;
+        }
+        byte value = flags.get(entity.type);
+        if ((value & TypeFlagTable.BLACKLISTED) != 0) {
+            return;
+        }
+        if ((value & TypeFlagTable.BOSS) != 0 && !config.canShowOnBosses()) {
+            return;
+        }
+        candidates.add(entity);
+    }
+
+    private float getPriority(StandInEntity entity, double maxDistanceSq) {
+        float priority = (float) -Math.min(entity.squaredDistanceTo(0.0D, 0.0D, 0.0D) / maxDistanceSq, 1.0D);
+        if ((flags.get(entity.type) & TypeFlagTable.BOSS) != 0) {
+            priority += 1.0F;
+        }
+        if (entity.hurtTime > 0) {
+            priority += 2.0F;
+        }
+        return priority;
+    }
+}
@@ -0,0 +1,163 @@
+package xyx.quigley.orderly.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import xyx.quigley.orderly.util.FocusMath;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the math of {@code FocusTracker}: the extended pick along the look vector, and the check whether
+ * the view point moved or turned enough to repeat it.
+ * <p>
+ * the repick check is the real {@link FocusMath}. the pick follows {@code Box#raycast} of minecraft, which cannot
+ * run here, as a slab test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FocusPickBenchmark {
+
+    private static final int VIEWS = 256;
+
+    @Param({"100", "1000"})
+    public int entityCount;
+
+    private List<StandInEntity> entities;
+    private final float[] yaws = new float[VIEWS];
+    private final float[] pitches = new float[VIEWS];
+    private final double[] offsets = new double[VIEWS];
+    private int view;
+
+    @Setup
+    public void setup() {
+        entities = StandInEntity.scatter(entityCount, 48.0D, 42L);
+        var random = new SplittableRandom(7L);
+        for (int i = 0; i < VIEWS; i++) {
+            yaws[i] = (float) random.nextDouble(-180.0D, 180.0D);
+            pitches[i] = (float) random.nextDouble(-30.0D, 30.0D);
+            offsets[i] = random.nextInt(4) == 0 ? random.nextDouble(0.0D, 0.2D) : 0.0D;
+        }
+    }
+
+    /**
+     * one extended pick from the origin, in a different direction every invocation
+     */
+    @Benchmark
+    public int pick() {
+        int i = view++ & (VIEWS - 1);
+        return pick(yaws[i], pitches[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VIEWS)
+    public int repickCheck() {
+        int repicks = 0;
+        for (int i = 1; i < VIEWS; i++) {
+            // mostly small turns of the previous view, like a player looking around
+            float yaw = yaws[i - 1] + (yaws[i] - yaws[i - 1]) * 0.002F;
+            float pitch = pitches[i - 1] + (pitches[i] - pitches[i - 1]) * 0.002F;
+            double offset = offsets[i];
+            if (FocusMath.hasViewChanged(offset * offset, yaw - yaws[i - 1], pitch - pitches[i - 1])) {
+                repicks++;
+            }
+        }
+        return repicks;
+    }
+
+    private int pick(float yaw, float pitch) {
+        // Entity#getRotationVector
+        double pitchRad = pitch * 0.017453292F;
+        double yawRad = -yaw * 0.017453292F;
+        double lookX = Math.sin(yawRad) * Math.cos(pitchRad);
+        double lookY = -Math.sin(pitchRad);
+        double lookZ = Math.cos(yawRad) * Math.cos(pitchRad);
+        double reachX = lookX * FocusMath.PICK_DISTANCE;
+        double reachY = lookY * FocusMath.PICK_DISTANCE;
+        double reachZ = lookZ * FocusMath.PICK_DISTANCE;
+        // the view point box stretched along the look vector and expanded by one, the broad phase
+        double minX = Math.min(0.0D, reachX) - 1.3D;
+        double minY = Math.min(0.0D, reachY) - 1.0D;
+        double minZ = Math.min(0.0D, reachZ) - 1.3D;
+        double maxX = Math.max(0.0D, reachX) + 1.3D;
+        double maxY = Math.max(0.0D, reachY) + 2.8D;
+        double maxZ = Math.max(0.0D, reachZ) + 1.3D;
+        int found = -1;
+        double minDistance = FocusMath.PICK_DISTANCE;
+        for (int i = 0; i < entities.size(); i++) {
+            var entity = entities.get(i);
+            double halfWidth = entity.width / 2.0D;
+            double boxMinX = entity.x - halfWidth;
+            double boxMinY = entity.y;
+            double boxMinZ = entity.z - halfWidth;
+            double boxMaxX = entity.x + halfWidth;
+            double boxMaxY = entity.y + entity.height;
+            double boxMaxZ = entity.z + halfWidth;
+            if (boxMaxX < minX || boxMinX > maxX || boxMaxY < minY || boxMinY > maxY
+                    || boxMaxZ < minZ || boxMinZ > maxZ) {
+                continue;
+            }
+            // the narrow phase, Box#raycast as a slab test
+            double fraction = intersect(reachX, reachY, reachZ,
+                    boxMinX, boxMinY, boxMinZ, boxMaxX, boxMaxY, boxMaxZ);
+            if (fraction < 0.0D) {
+                continue;
+            }
+            double distance = fraction * FocusMath.PICK_DISTANCE;
+            if (distance < minDistance || minDistance == 0.0D) {
+                found = entity.id;
+                minDistance = distance;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the fraction of the ray from the origin at which it enters the box, {@code 0} when it starts
+     * inside, or {@code -1} when it misses
+     */
+    private static double intersect(double dx, double dy, double dz,
+                                    double minX, double minY, double minZ,
+                                    double maxX, double maxY, double maxZ) {
+        double near = 0.0D;
+        double far = 1.0D;
+        if (Math.abs(dx) < 1.0E-7D) {
+            if (minX > 0.0D || maxX < 0.0D) {
+                return -1.0D;
+            }
+        } else {
+            near = Math.max(near, Math.min(minX / dx, maxX / dx));
+            far = Math.min(far, Math.max(minX / dx, maxX / dx));
+        }
+        if (Math.abs(dy) < 1.0E-7D) {
+            if (minY > 0.0D || maxY < 0.0D) {
+                return -1.0D;
+            }
+        } else {
+            near = Math.max(near, Math.min(minY / dy, maxY / dy));
+            far = Math.min(far, Math.max(minY / dy, maxY / dy));
+        }
+        if (Math.abs(dz) < 1.0E-7D) {
+            if (minZ > 0.0D || maxZ < 0.0D) {
+                return -1.0D;
+            }
+        } else {
+            near = Math.max(near, Math.min(minZ / dz, maxZ / dz));
+            far = Math.min(far, Math.max(minZ / dz, maxZ / dz));
+        }
+        if (near > far) {
+            return -1.0D;
+        }
+        return near;
+    }
+
+}
@@ -0,0 +1,78 @@
+package xyx.quigley.orderly.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import xyx.quigley.orderly.util.NumberLabelFormatter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the hp and percent labels of a plate, with the cached formatter and with the format and regex it replaced
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LabelBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final float[] healths = new float[SAMPLES];
+    private final float[] maxHealths = new float[SAMPLES];
+    private NumberLabelFormatter hpLabels;
+    private NumberLabelFormatter percentLabels;
+
+    @Setup
+    public void setup() {
+        var random = new SplittableRandom(42L);
+        for (int i = 0; i < SAMPLES; i++) {
+            maxHealths[i] = 4.0F + random.nextInt(60) * 2.0F;
+            // mostly half steps like vanilla damage, some odd values from modded damage and regeneration
+            healths[i] = random.nextInt(8) == 0
+                    ? (float) random.nextDouble(0.0D, maxHealths[i])
+                    : random.nextInt((int) (maxHealths[i] * 2.0F) + 1) * 0.5F;
+        }
+        hpLabels = new NumberLabelFormatter("", "");
+        percentLabels = new NumberLabelFormatter("", "%");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void hp(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(hpLabels.format(healths[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void percent(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(percentLabels.format((healths[i] / maxHealths[i]) * 100.0F));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void hpFormatted(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            blackhole.consume(String.format("%.2f", healths[i]).replaceAll("\\.00$", ""));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void percentFormatted(Blackhole blackhole) {
+        for (int i = 0; i < SAMPLES; i++) {
+            float percent = (healths[i] / maxHealths[i]) * 100.0F;
+            blackhole.consume(String.format("%.2f%%", percent).replace(".00%", "%"));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package xyx.quigley.orderly.benchmark;
+
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * the defaults of the real config, without the cloth config and gson annotations
+ */
+final class StandInConfig implements OrderlyConfig {
+
+    boolean colorByType = false;
+    boolean showOnPlayers = true;
+    boolean showOnBosses = true;
+    int maxDistance = 24;
+    int maxPlatesPerFrame = 64;
+    final Set<String> blacklist = new HashSet<>(Set.of(
+            "minecraft:armor_stand",
+            "minecraft:bee",
+            "minecraft:cod",
+            "minecraft:pufferfish",
+            "minecraft:salmon",
+            "minecraft:shulker",
+            "minecraft:tropical_fish",
+            "illuminations:firefly"
+    ));
+    final Set<String> bosses = new HashSet<>(Set.of(
+            "minecraft:ender_dragon",
+            "minecraft:wither"
+    ));
+
+    @Override
+    public boolean canDraw() {
+        return true;
+    }
+
+    @Override
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    @Override
+    public boolean canRenderInF1() {
+        return false;
+    }
+
+    @Override
+    public float getHealthBarScale() {
+        return 1.0F;
+    }
+
+    @Override
+    public double getHeightAbove() {
+        return 0.6D;
+    }
+
+    @Override
+    public boolean drawsBackground() {
+        return true;
+    }
+
+    @Override
+    public int getBackgroundPadding() {
+        return 2;
+    }
+
+    @Override
+    public int getBackgroundHeight() {
+        return 6;
+    }
+
+    @Override
+    public int getBarHeight() {
+        return 4;
+    }
+
+    @Override
+    public int getPlateSize() {
+        return 25;
+    }
+
+    @Override
+    public int getPlateSizeBoss() {
+        return 50;
+    }
+
+    @Override
+    public boolean canShowAttributes() {
+        return true;
+    }
+
+    @Override
+    public boolean canShowArmor() {
+        return true;
+    }
+
+    @Override
+    public boolean canShowGroupArmor() {
+        return true;
+    }
+
+    @Override
+    public boolean colorByType() {
+        return colorByType;
+    }
+
+    @Override
+    public int getHpTextHeight() {
+        return 14;
+    }
+
+    @Override
+    public boolean canShowMaxHP() {
+        return true;
+    }
+
+    @Override
+    public boolean showCurrentHP() {
+        return true;
+    }
+
+    @Override
+    public boolean canShowPercentage() {
+        return true;
+    }
+
+    @Override
+    public boolean canShowOnPlayers() {
+        return showOnPlayers;
+    }
+
+    @Override
+    public boolean canShowOnBosses() {
+        return showOnBosses;
+    }
+
+    @Override
+    public boolean showingOnlyFocused() {
+        return false;
+    }
+
+    @Override
+    public boolean isDebugInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getLineOfSightCacheTicks() {
+        return 5;
+    }
+
+    @Override
+    public boolean useInstancedBars() {
+        return false;
+    }
+
+    @Override
+    public int getLodFullTextPixels() {
+        return 6;
+    }
+
+    @Override
+    public int getLodNameTextPixels() {
+        return 3;
+    }
+
+    @Override
+    public boolean useLodFarDot() {
+        return false;
+    }
+
+    @Override
+    public int getMaxPlatesPerFrame() {
+        return maxPlatesPerFrame;
+    }
+
+    @Override
+    public boolean cullsHiddenSections() {
+        return true;
+    }
+
+    @Override
+    public boolean showingOnlyDamaged() {
+        return false;
+    }
+
+    @Override
+    public int getDamagedWindowTicks() {
+        return 100;
+    }
+
+    @Override
+    public int getDamagedFadeTicks() {
+        return 20;
+    }
+
+    @Override
+    public String getHealthPalette() {
+        return "default";
+    }
+
+    @Override
+    public List<String> getPalettes() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getTypePalettes() {
+        return List.of();
+    }
+
+    @Override
+    public Set<String> getBlacklist() {
+        return blacklist;
+    }
+
+    @Override
+    public Set<String> getBosses() {
+        return bosses;
+    }
+}
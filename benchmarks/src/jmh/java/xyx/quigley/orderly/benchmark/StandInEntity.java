@@ -0,0 +1,71 @@
+package xyx.quigley.orderly.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * the part of a living entity the render path reads, as plain fields
+ */
+final class StandInEntity {
+
+    final int id;
+    final StandInType type;
+    final double x;
+    final double y;
+    final double z;
+    final float width;
+    final float height;
+    final float health;
+    final float maxHealth;
+    final int hurtTime;
+    final boolean alive;
+    final boolean invisible;
+    final boolean hasPassengers;
+    final boolean monster;
+
+    private StandInEntity(int id, StandInType type, double x, double y, double z, SplittableRandom random) {
+        this.id = id;
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.width = 0.6F + random.nextInt(4) * 0.3F;
+        this.height = 0.8F + random.nextInt(8) * 0.2F;
+        this.maxHealth = 4.0F + random.nextInt(16) * 2.0F;
+        this.health = random.nextInt((int) (maxHealth * 2.0F) + 1) * 0.5F;
+        this.hurtTime = random.nextInt(10) == 0 ? 10 : 0;
+        this.alive = random.nextInt(50) != 0;
+        this.invisible = random.nextInt(100) == 0;
+        this.hasPassengers = random.nextInt(100) == 0;
+        this.monster = (type.getRawId() & 1) == 0;
+    }
+
+    /**
+     * entities of random types scattered in a cube around the origin, always the same ones for a given seed
+     */
+    static List<StandInEntity> scatter(int count, double halfExtent, long seed) {
+        var random = new SplittableRandom(seed);
+        var types = StandInType.REGISTRY;
+        var entities = new ArrayList<StandInEntity>(count);
+        for (int i = 0; i < count; i++) {
+            var type = types.get(random.nextInt(types.size()));
+            entities.add(new StandInEntity(
+                    i,
+                    type,
+                    random.nextDouble(-halfExtent, halfExtent),
+                    random.nextDouble(-halfExtent / 4.0D, halfExtent / 4.0D),
+                    random.nextDouble(-halfExtent, halfExtent),
+                    random
+            ));
+        }
+        return entities;
+    }
+
+    double squaredDistanceTo(double x, double y, double z) {
+        double dx = this.x - x;
+        double dy = this.y - y;
+        double dz = this.z - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
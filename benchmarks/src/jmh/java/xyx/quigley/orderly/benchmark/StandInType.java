@@ -0,0 +1,66 @@
+package xyx.quigley.orderly.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * an entity type with the identifier and raw registry id the real one would have
+ */
+final class StandInType {
+
+    static final List<StandInType> REGISTRY;
+
+    static {
+        var ids = new String[]{
+                "minecraft:armor_stand", "minecraft:bat", "minecraft:bee", "minecraft:blaze", "minecraft:cat",
+                "minecraft:cave_spider", "minecraft:chicken", "minecraft:cod", "minecraft:cow", "minecraft:creeper",
+                "minecraft:dolphin", "minecraft:donkey", "minecraft:drowned", "minecraft:ender_dragon",
+                "minecraft:enderman", "minecraft:evoker", "minecraft:fox", "minecraft:ghast", "minecraft:glow_squid",
+                "minecraft:goat", "minecraft:guardian", "minecraft:horse", "minecraft:husk", "minecraft:iron_golem",
+                "minecraft:llama", "minecraft:magma_cube", "minecraft:phantom", "minecraft:pig", "minecraft:piglin",
+                "minecraft:pillager", "minecraft:player", "minecraft:pufferfish", "minecraft:rabbit",
+                "minecraft:salmon", "minecraft:sheep", "minecraft:shulker", "minecraft:skeleton", "minecraft:slime",
+                "minecraft:spider", "minecraft:squid", "minecraft:strider", "minecraft:tropical_fish",
+                "minecraft:villager", "minecraft:witch", "minecraft:wither", "minecraft:wolf", "minecraft:zombie",
+                "minecraft:zombie_villager", "illuminations:firefly"
+        };
+        var types = new ArrayList<StandInType>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            types.add(new StandInType(ids[i], i));
+        }
+        REGISTRY = Collections.unmodifiableList(types);
+    }
+
+    private final String id;
+    private final String namespace;
+    private final String path;
+    private final int rawId;
+
+    private StandInType(String id, int rawId) {
+        this.id = id;
+        int separator = id.indexOf(':');
+        this.namespace = id.substring(0, separator);
+        this.path = id.substring(separator + 1);
+        this.rawId = rawId;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    int getRawId() {
+        return rawId;
+    }
+
+    /**
+     * builds the identifier string again on every call, like {@code Identifier#toString} does
+     */
+    String toIdentifierString() {
+        return namespace + ":" + path;
+    }
+
+    boolean isPlayer() {
+        return "minecraft:player".equals(id);
+    }
+}
@@ -1,31 +1,58 @@
 package xyx.quigley.orderly;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Matrix3f;
 import net.minecraft.util.math.Matrix4f;
-import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.registry.Registry;
-import net.minecraft.world.RaycastContext;
 import xyx.quigley.orderly.api.UIManager;
 import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.config.EntityTypeFlags;
 import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.CandidateSnapshot;
+import xyx.quigley.orderly.tracking.FocusTracker;
+import xyx.quigley.orderly.tracking.LineOfSightCache;
+import xyx.quigley.orderly.tracking.VisibleSections;
+import xyx.quigley.orderly.ui.InstancedBarRenderer;
+import xyx.quigley.orderly.util.BatchedVertexConsumers;
+import xyx.quigley.orderly.util.PlateBudget;
 import xyx.quigley.orderly.util.RenderUtil;
 
 import javax.annotation.Nullable;
-import java.util.Optional;
-import java.util.Stack;
-import java.util.stream.StreamSupport;
+import java.util.ArrayList;
 
 public class HealthBarRenderer {
 
+    /**
+     * shear applied to the normal matrix of every bar
+     */
+    private static final Matrix3f NORMAL_TRANSFORM = new Matrix3f();
+    // reused every frame, so the steady state does not allocate anything per bar
+    private static final MatrixStack BAR_MATRICES = new MatrixStack();
+    private static final ArrayList<LivingEntity> PASSENGER_STACK = new ArrayList<>();
+    /**
+     * all bars of a frame are collected here and drawn at once, one draw call per layer
+     */
+    private static final BatchedVertexConsumers VERTEX_CONSUMERS = new BatchedVertexConsumers();
+    /**
+     * indices into the {@link CandidateSnapshot} that passed the per frame checks
+     */
+    private static final IntArrayList VISIBLE_CANDIDATES = new IntArrayList();
+    private static final PlateBudget BUDGET = new PlateBudget();
+
+    static {
+        NORMAL_TRANSFORM.set(0, 0, 1.0F);
+        NORMAL_TRANSFORM.set(1, 1, 1.0F);
+        NORMAL_TRANSFORM.set(2, 2, 1.0F);
+        NORMAL_TRANSFORM.set(1, 2, 1.0F);
+    }
+
     public static void render(MatrixStack matrices, float partialTicks, Camera camera,
                               GameRenderer gameRenderer, LightmapTextureManager lightmapTextureManager,
                               Matrix4f projection, Frustum capturedFrustum) {
@@ -36,19 +63,30 @@ public class HealthBarRenderer {
                 || !config.canDraw()) {
             return;
         }
-        final var cameraEntity = Optional.ofNullable(camera.getFocusedEntity()).orElse(mc.player);
+        final var cameraEntity = camera.getFocusedEntity() != null ? camera.getFocusedEntity() : mc.player;
         assert cameraEntity != null : "Camera Entity must not be null!";
+        var profiler = mc.getProfiler();
+        profiler.push("orderly");
+        RenderStats.beginFrame();
+        long frameStart = System.nanoTime();
+        long mark = frameStart;
         if (config.showingOnlyFocused()) {
-            Entity focused = getEntityLookedAt(cameraEntity);
+            profiler.push("focus");
+            Entity focused = FocusTracker.getFocusedEntity(cameraEntity);
+            mark = LatencyStats.record(LatencyStats.Phase.FOCUS, mark);
+            profiler.swap("style_render");
             if (focused instanceof LivingEntity && focused.isAlive()) {
-                renderHealthBar((LivingEntity) focused,
+                renderHealthBarStack((LivingEntity) focused,
                         matrices,
                         partialTicks,
                         camera,
                         cameraEntity
                 );
             }
+            mark = LatencyStats.record(LatencyStats.Phase.STYLE_RENDER, mark);
+            profiler.pop();
         } else {
+            profiler.push("scan");
             var cameraPos = camera.getPos();
             final Frustum frustum;
             if (capturedFrustum != null) {
@@ -57,188 +95,235 @@ public class HealthBarRenderer {
                 frustum = new Frustum(matrices.peek().getModel(), projection);
                 frustum.setPosition(cameraPos.getX(), cameraPos.getY(), cameraPos.getZ());
             }
-            StreamSupport.stream(mc.world.getEntities().spliterator(), false).filter(
-                    entity -> entity instanceof LivingEntity
-                            && entity != cameraEntity
-                            && entity.isAlive()
-                            && (Iterables.size(entity.getPassengersDeep()) == 0)
-                            && entity.shouldRender(
-                            cameraPos.getX(),
-                            cameraPos.getY(),
-                            cameraPos.getZ())
-                            && (entity.ignoreCameraFrustum
-                            || frustum.isVisible(entity.getBoundingBox()))
-            ).map(LivingEntity.class::cast).forEach(
-                    entity -> renderHealthBar(entity, matrices, partialTicks, camera, cameraEntity)
+            // the tick independent checks already happened in RenderCandidates#tick
+            var snapshot = CandidateSnapshot.get();
+            RenderStats.checked = snapshot.size();
+            mark = LatencyStats.record(LatencyStats.Phase.SCAN, mark);
+            profiler.swap("filter");
+            var visible = VISIBLE_CANDIDATES;
+            visible.clear();
+            // a frozen frustum shows a different view than the one the sections were culled for
+            boolean cullSections = config.cullsHiddenSections() && capturedFrustum == null;
+            for (int i = 0; i < snapshot.size(); i++) {
+                var entity = snapshot.getEntity(i);
+                if (!entity.isAlive()) {
+                    continue;
+                }
+                if (!entity.ignoreCameraFrustum && !frustum.isVisible(entity.getBoundingBox())) {
+                    RenderStats.culledByFrustum++;
+                } else if (cullSections && !VisibleSections.isVisible(entity)) {
+                    RenderStats.culledBySections++;
+                } else {
+                    visible.add(i);
+                }
+            }
+            // a pass of its own, so the raycasts show up separately in the profiler
+            mark = LatencyStats.record(LatencyStats.Phase.FILTER, mark);
+            profiler.swap("line_of_sight");
+            int kept = 0;
+            for (int i = 0; i < visible.size(); i++) {
+                int candidate = visible.getInt(i);
+                if (LineOfSightCache.canSee(snapshot.getEntity(candidate), cameraEntity)) {
+                    visible.set(kept++, candidate);
+                }
+            }
+            RenderStats.culledByLineOfSight = visible.size() - kept;
+            visible.size(kept);
+            mark = LatencyStats.record(LatencyStats.Phase.LINE_OF_SIGHT, mark);
+            profiler.swap("budget");
+            int budget = config.getMaxPlatesPerFrame();
+            boolean limited = budget > 0 && visible.size() > budget;
+            if (limited) {
+                selectByPriority(snapshot, budget, cameraEntity, mc.targetedEntity, config);
+            }
+            mark = LatencyStats.record(LatencyStats.Phase.BUDGET, mark);
+            profiler.swap("style_render");
+            for (int i = 0; i < visible.size(); i++) {
+                if (limited && !BUDGET.isSelected(i)) {
+                    RenderStats.culledByBudget++;
+                    continue;
+                }
+                int candidate = visible.getInt(i);
+                CandidateSnapshot.setRendering(snapshot, candidate);
+                renderHealthBar(
+                        snapshot.getEntity(candidate),
+                        snapshot.getX(candidate, partialTicks),
+                        snapshot.getY(candidate, partialTicks),
+                        snapshot.getZ(candidate, partialTicks),
+                        snapshot.getHeight(candidate),
+                        snapshot.isBoss(candidate),
+                        matrices,
+                        camera,
+                        config
+                );
+            }
+            CandidateSnapshot.setRendering(null, -1);
+            mark = LatencyStats.record(LatencyStats.Phase.STYLE_RENDER, mark);
+            profiler.pop();
+        }
+        profiler.push("flush");
+        RenderStats.instancedBars = InstancedBarRenderer.getQueuedCount();
+        RenderStats.vertices = VERTEX_CONSUMERS.getVertexCount();
+        // bars first, text and icons are drawn on top of them
+        InstancedBarRenderer.draw(config);
+        VERTEX_CONSUMERS.draw();
+        LatencyStats.record(LatencyStats.Phase.FLUSH, mark);
+        LatencyStats.record(LatencyStats.Phase.FRAME, frameStart);
+        profiler.pop();
+        profiler.pop();
+    }
+
+    /**
+     * marks the plates to draw when there are more visible candidates than the budget allows, see {@link PlateBudget}
+     */
+    private static void selectByPriority(CandidateSnapshot snapshot,
+                                         int budget,
+                                         Entity viewPoint,
+                                         @Nullable Entity target,
+                                         OrderlyConfig config) {
+        var visible = VISIBLE_CANDIDATES;
+        BUDGET.begin(visible.size(), budget);
+        double maxDistanceSq = (double) config.getMaxDistance() * config.getMaxDistance();
+        for (int i = 0; i < visible.size(); i++) {
+            int candidate = visible.getInt(i);
+            BUDGET.offer(
+                    i,
+                    snapshot.getId(candidate),
+                    getPriority(snapshot, candidate, viewPoint, target, maxDistanceSq)
             );
         }
+        BUDGET.select();
     }
 
-    private static Entity getEntityLookedAt(Entity e) {
-        Entity foundEntity = null;
-        final double finalDistance = 32;
-        var distance = finalDistance;
-        var pos = raycast(e, finalDistance);
-        var positionVector = e.getPos();
-        if (e instanceof PlayerEntity) {
-            positionVector = positionVector.add(0, e.getEyeHeight(e.getPose()), 0);
+    /**
+     * the focused target beats recently hurt entities, which beat bosses, closer entities win ties
+     */
+    private static float getPriority(CandidateSnapshot snapshot,
+                                     int index,
+                                     Entity viewPoint,
+                                     @Nullable Entity target,
+                                     double maxDistanceSq) {
+        double distanceSq = snapshot.getSquaredDistance(index, viewPoint.getX(), viewPoint.getY(), viewPoint.getZ());
+        float priority = (float) -Math.min(distanceSq / maxDistanceSq, 1.0D);
+        if (snapshot.isBoss(index)) {
+            priority += 1.0F;
         }
-        if (pos != null) {
-            distance = pos.getPos().distanceTo(positionVector);
+        if (snapshot.getHurtTime(index) > 0) {
+            priority += 2.0F;
         }
-        var lookVector = e.getRotationVector();
-        var reachVector = positionVector.add(
-                lookVector.x * finalDistance,
-                lookVector.y * finalDistance,
-                lookVector.z * finalDistance
-        );
-        Entity lookedEntity = null;
-        var entitiesInBoundingBox = e.getEntityWorld().getOtherEntities(
-                e,
-                e.getBoundingBox()
-                        .stretch(
-                                lookVector.x * finalDistance,
-                                lookVector.y * finalDistance,
-                                lookVector.z * finalDistance)
-                        .expand(1.0F));
-        var minDistance = distance;
-        for (var entity : entitiesInBoundingBox) {
-            if (entity.collides()) {
-                var collisionBox = entity.getVisibilityBoundingBox();
-                var interceptPosition = collisionBox.raycast(positionVector, reachVector);
-                if (collisionBox.contains(positionVector)) {
-                    if (0.0D < minDistance || minDistance == 0.0D) {
-                        lookedEntity = entity;
-                        minDistance = 0.0D;
-                    }
-                } else if (interceptPosition.isPresent()) {
-                    double distanceToEntity = positionVector.distanceTo(interceptPosition.get());
-                    if (distanceToEntity < minDistance || minDistance == 0.0D) {
-                        lookedEntity = entity;
-                        minDistance = distanceToEntity;
-                    }
-                }
-            }
-            if (lookedEntity != null && (minDistance < distance || pos == null)) {
-                foundEntity = lookedEntity;
-            }
+        if (snapshot.getEntity(index) == target) {
+            priority += 4.0F;
         }
-        return foundEntity;
+        return priority;
     }
 
-    private static void renderHealthBar(LivingEntity passedEntity,
-                                        MatrixStack matrices,
-                                        float partialTicks,
-                                        Camera camera,
-                                        Entity viewPoint) {
+    private static void renderHealthBarStack(LivingEntity passedEntity,
+                                             MatrixStack matrices,
+                                             float partialTicks,
+                                             Camera camera,
+                                             Entity viewPoint) {
         Preconditions.checkNotNull(
                 passedEntity,
                 "tried to render health bar for null entity"
         );
         OrderlyConfig config = OrderlyConfigManager.getConfig();
-        var style = UIManager.getCurrentStyle();
-
-        var mc = MinecraftClient.getInstance();
-        var passengerStack = new Stack<LivingEntity>();
+        var passengerStack = PASSENGER_STACK;
+        passengerStack.clear();
         var entity = passedEntity;
-        passengerStack.push(entity);
+        passengerStack.add(entity);
         while (entity.getPrimaryPassenger() instanceof LivingEntity) {
             entity = (LivingEntity) entity.getPrimaryPassenger();
-            passengerStack.push(entity);
+            passengerStack.add(entity);
         }
         matrices.push();
         while (!passengerStack.isEmpty()) {
-            entity = passengerStack.pop();
+            entity = passengerStack.remove(passengerStack.size() - 1);
             if (!entity.isAlive()) continue;
-            var idString = String.valueOf(Registry.ENTITY_TYPE.getId(entity.getType()));
-            boolean boss = config.getBosses().contains(idString);
-            if (config.getBlacklist().contains(idString)) {
+            byte flags = EntityTypeFlags.get(entity.getType());
+            boolean boss = (flags & EntityTypeFlags.BOSS) != 0;
+            if ((flags & EntityTypeFlags.BLACKLISTED) != 0) {
                 continue;
             }
-            processing:
-            {
-                float distance = passedEntity.distanceTo(viewPoint);
-                if (distance > config.getMaxDistance()
-                        || !passedEntity.canSee(viewPoint)
-                        || entity.isInvisible()) {
-                    break processing;
-                }
-                if (boss && !config.canShowOnBosses()) {
-                    break processing;
-                }
-                if (!config.canShowOnPlayers() && entity instanceof PlayerEntity) {
-                    break processing;
-                }
-                if (entity.getMaxHealth() <= 0.0F) {
-                    break processing;
-                }
-                var x = passedEntity.prevX
-                        + (passedEntity.getX() - passedEntity.prevX)
-                        * partialTicks;
-                var y = passedEntity.prevY
-                        + (passedEntity.getY() - passedEntity.prevY)
-                        * partialTicks;
-                var z = passedEntity.prevZ
-                        + (passedEntity.getZ() - passedEntity.prevZ)
-                        * partialTicks;
-
-                var renderManager = MinecraftClient.getInstance()
-                        .getEntityRenderDispatcher();
-                matrices.push();
-                {
-                    matrices.translate(
-                            x - renderManager.camera.getPos().x,
-                            y - renderManager.camera.getPos().y
-                                    + passedEntity.getHeight()
-                                    + config.getHeightAbove(),
-                            z - renderManager.camera.getPos().z);
-                    var normalMatrix = matrices.peek().getNormal();
-                    var translateMatrix = new Matrix3f();
-                    translateMatrix.set(0, 0, 1.0F);
-                    translateMatrix.set(1, 1, 1.0F);
-                    translateMatrix.set(2, 2, 1.0F);
-                    translateMatrix.set(1, 2, 1.0F);
-                    normalMatrix.multiply(translateMatrix);
-                    DiffuseLighting.disableGuiDepthLighting();
-                    var immediate = mc.getBufferBuilders().getEntityVertexConsumers();
-                    var icon = RenderUtil.getIcon(entity, boss);
-                    final int light = 0xF000F0;
-                    if (boss) {
-                        style.renderBossEntity(matrices, immediate, camera, config, entity, light
-                                , icon);
-                    } else {
-                        style.renderEntity(matrices, immediate, camera, config, entity, light, icon);
-                    }
-                }
-                matrices.pop();
-                matrices.translate(
-                        0.0D,
-                        -(config.getBackgroundHeight()
-                                + config.getBarHeight()
-                                + config.getBackgroundPadding()),
-                        0.0D
-                );
+            float distance = passedEntity.distanceTo(viewPoint);
+            if (distance > config.getMaxDistance()
+                    || !LineOfSightCache.canSee(passedEntity, viewPoint)
+                    || entity.isInvisible()) {
+                continue;
+            }
+            if (boss && !config.canShowOnBosses()) {
+                continue;
+            }
+            if (!config.canShowOnPlayers() && entity instanceof PlayerEntity) {
+                continue;
+            }
+            if (entity.getMaxHealth() <= 0.0F) {
+                continue;
             }
+            renderHealthBar(
+                    entity,
+                    MathHelper.lerp(partialTicks, passedEntity.prevX, passedEntity.getX()),
+                    MathHelper.lerp(partialTicks, passedEntity.prevY, passedEntity.getY()),
+                    MathHelper.lerp(partialTicks, passedEntity.prevZ, passedEntity.getZ()),
+                    passedEntity.getHeight(),
+                    boss,
+                    matrices,
+                    camera,
+                    config
+            );
+            matrices.translate(
+                    0.0D,
+                    -(config.getBackgroundHeight()
+                            + config.getBarHeight()
+                            + config.getBackgroundPadding()),
+                    0.0D
+            );
         }
         matrices.pop();
     }
 
-    @Nullable
-    private static HitResult raycast(Entity entity, double len) {
-        var vec = new Vec3d(entity.getX(), entity.getY(), entity.getZ());
-        if (entity instanceof PlayerEntity) {
-            vec = vec.add(new Vec3d(0, entity.getEyeHeight(entity.getPose()), 0));
-        }
-        var look = entity.getRotationVector();
-        if (look == null) {
-            return null;
-        }
-        return raycast(entity, vec, look, len);
-    }
+    /**
+     * draws a single health bar, all checks must have happened before.
+     * the position and height are the ones of the bottom-most entity of the passenger stack
+     */
+    private static void renderHealthBar(LivingEntity entity,
+                                        double x,
+                                        double y,
+                                        double z,
+                                        float height,
+                                        boolean boss,
+                                        MatrixStack matrices,
+                                        Camera camera,
+                                        OrderlyConfig config) {
+        var mc = MinecraftClient.getInstance();
+        var style = UIManager.getCurrentStyle();
+        RenderStats.plates++;
 
-    private static HitResult raycast(Entity entity, Vec3d origin, Vec3d ray, double len) {
-        var next = origin.add(ray.normalize().multiply(len));
-        return entity.getEntityWorld().raycast(new RaycastContext(origin, next,
-                RaycastContext.ShapeType.OUTLINE, RaycastContext.FluidHandling.NONE, entity));
+        var renderManager = mc.getEntityRenderDispatcher();
+        // instead of push/pop, reset the single entry of the scratch stack to the caller's transform
+        var barMatrices = BAR_MATRICES;
+        barMatrices.peek().getModel().load(matrices.peek().getModel());
+        barMatrices.peek().getNormal().load(matrices.peek().getNormal());
+        {
+            barMatrices.translate(
+                    x - renderManager.camera.getPos().x,
+                    y - renderManager.camera.getPos().y
+                            + height
+                            + config.getHeightAbove(),
+                    z - renderManager.camera.getPos().z);
+            var normalMatrix = barMatrices.peek().getNormal();
+            normalMatrix.multiply(NORMAL_TRANSFORM);
+            DiffuseLighting.disableGuiDepthLighting();
+            var immediate = VERTEX_CONSUMERS;
+            var icon = RenderUtil.getIcon(entity, boss);
+            final int light = 0xF000F0;
+            long styleStart = System.nanoTime();
+            if (boss) {
+                style.renderBossEntity(barMatrices, immediate, camera, config, entity, light
+                        , icon);
+            } else {
+                style.renderEntity(barMatrices, immediate, camera, config, entity, light, icon);
+            }
+            LatencyStats.recordStyle(UIManager.getCurrentID(), System.nanoTime() - styleStart);
+        }
     }
 }
@@ -0,0 +1,122 @@
+package xyx.quigley.orderly;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import xyx.quigley.orderly.util.RollingLatency;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * rolling latencies of the render phases over the last frames, and of the style calls over the last plates,
+ * dumped as json on request.
+ */
+public final class LatencyStats {
+
+    private static final int FRAME_WINDOW = 1024;
+    private static final int STYLE_WINDOW = 4096;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss");
+
+    private static final EnumMap<Phase, RollingLatency> PHASES = new EnumMap<>(Phase.class);
+    private static final Map<Identifier, RollingLatency> STYLES = new LinkedHashMap<>();
+    private static Identifier lastStyleId;
+    private static RollingLatency lastStyle;
+
+    static {
+        for (var phase : Phase.values()) {
+            PHASES.put(phase, new RollingLatency(FRAME_WINDOW));
+        }
+    }
+
+    private LatencyStats() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * records the time since {@code start} for the phase
+     *
+     * @return the current time, to start the next phase from
+     */
+    static long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        PHASES.get(phase).record(now - start);
+        return now;
+    }
+
+    static void recordStyle(Identifier style, long nanos) {
+        if (style != lastStyleId) {
+            lastStyleId = style;
+            lastStyle = STYLES.computeIfAbsent(style, id -> new RollingLatency(STYLE_WINDOW));
+        }
+        lastStyle.record(nanos);
+    }
+
+    /**
+     * writes the percentiles of all phases and styles into a new file in the given directory, on the io worker
+     *
+     * @return the file written to, completed once it is written
+     */
+    public static CompletableFuture<Path> dump(Path directory) {
+        var report = new JsonObject();
+        report.addProperty("frame_window", FRAME_WINDOW);
+        report.addProperty("style_window", STYLE_WINDOW);
+        var phases = new JsonObject();
+        for (var entry : PHASES.entrySet()) {
+            phases.add(entry.getKey().name().toLowerCase(Locale.ROOT), summarize(entry.getValue()));
+        }
+        report.add("phases", phases);
+        var styles = new JsonObject();
+        for (var entry : STYLES.entrySet()) {
+            styles.add(entry.getKey().toString(), summarize(entry.getValue()));
+        }
+        report.add("styles", styles);
+        var file = directory.resolve(Orderly.MODID + "-latency-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + ".json");
+        var json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.writeString(file, json);
+            } catch (IOException e) {
+                Orderly.getLogger().error("unable to write latency report {}", file, e);
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        }, Util.getIoWorkerExecutor());
+    }
+
+    private static JsonObject summarize(RollingLatency latency) {
+        var sorted = latency.getSortedSamples();
+        var summary = new JsonObject();
+        summary.addProperty("total", latency.getTotal());
+        summary.addProperty("samples", sorted.length);
+        summary.addProperty("p50_ns", RollingLatency.percentile(sorted, 0.50D));
+        summary.addProperty("p95_ns", RollingLatency.percentile(sorted, 0.95D));
+        summary.addProperty("p99_ns", RollingLatency.percentile(sorted, 0.99D));
+        summary.addProperty("max_ns", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        return summary;
+    }
+
+    /**
+     * the phases of {@link HealthBarRenderer#render}, {@link #FRAME} is all of them together
+     */
+    enum Phase {
+        FRAME,
+        FOCUS,
+        SCAN,
+        FILTER,
+        LINE_OF_SIGHT,
+        BUDGET,
+        STYLE_RENDER,
+        FLUSH
+    }
+}
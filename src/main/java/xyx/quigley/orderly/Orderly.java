@@ -3,8 +3,16 @@ package xyx.quigley.orderly;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.text.TranslatableText;
 import net.minecraft.util.Identifier;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -12,13 +20,31 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.config.Configurator;
 import xyx.quigley.orderly.api.UIManager;
 import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.CandidateSnapshot;
+import xyx.quigley.orderly.tracking.EntityStateStore;
+import xyx.quigley.orderly.tracking.EntityTracker;
+import xyx.quigley.orderly.tracking.FocusTracker;
+import xyx.quigley.orderly.tracking.HealthTracker;
+import xyx.quigley.orderly.tracking.LineOfSightCache;
+import xyx.quigley.orderly.tracking.RenderCandidates;
+import xyx.quigley.orderly.ui.ArmorStripAtlas;
 import xyx.quigley.orderly.ui.DefaultUIStyle;
+import xyx.quigley.orderly.ui.IconRegistry;
+import xyx.quigley.orderly.ui.NameLayoutCache;
+import xyx.quigley.orderly.ui.PlateMeshCache;
+import xyx.quigley.orderly.ui.PlatePreparer;
 import xyx.quigley.orderly.ui.SaoUIStyle;
+import xyx.quigley.orderly.ui.StyleProbe;
+
+import java.util.Collection;
+import java.util.List;
 
 public class Orderly implements ClientModInitializer {
 
     public static final String MODID = "orderly";
     private static KeyBinding toggleKey;
+    private static KeyBinding probeKey;
+    private static KeyBinding latencyKey;
     private static final Logger log = LogManager.getLogger(MODID);
 
     public static Logger getLogger() {
@@ -45,17 +71,87 @@ public class Orderly implements ClientModInitializer {
         UIManager.registerStyle(saoStyle, SaoUIStyle::new);
         UIManager.setCurrentStyle(defaultStyle);
         OrderlyConfigManager.init();
+        EntityTracker.init();
+        EntityTracker.addUnloadListener(EntityStateStore::remove);
+        EntityTracker.addResetListener(EntityStateStore::clear);
+        // the world only changes at the next tick, the ids of the old connection must not leak into a new one
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> client.execute(EntityStateStore::clear));
+        EntityTracker.addResetListener(IconRegistry::invalidateTags);
+        EntityTracker.addResetListener(PlatePreparer::clear);
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(
+                new SimpleSynchronousResourceReloadListener() {
+                    @Override
+                    public Identifier getFabricId() {
+                        return new Identifier(MODID, "icons");
+                    }
+
+                    @Override
+                    public Collection<Identifier> getFabricDependencies() {
+                        // icons are looked up in the stitched block atlas
+                        return List.of(ResourceReloadListenerKeys.MODELS);
+                    }
+
+                    @Override
+                    public void reload(ResourceManager manager) {
+                        IconRegistry.reload(manager);
+                        ArmorStripAtlas.reload(manager);
+                        // recorded plates reference glyph and sprite uvs, which change with the resource packs
+                        PlateMeshCache.clear();
+                        // and names were measured with the fonts of the old packs
+                        NameLayoutCache.clear();
+                    }
+                }
+        );
         toggleKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
                 "key.orderly.toggle",
                 InputUtil.Type.KEYSYM,
                 InputUtil.UNKNOWN_KEY.getCode(),
                 "category.orderly"
         ));
+        probeKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
+                "key.orderly.probe",
+                InputUtil.Type.KEYSYM,
+                InputUtil.UNKNOWN_KEY.getCode(),
+                "category.orderly"
+        ));
+        latencyKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
+                "key.orderly.dumpLatency",
+                InputUtil.Type.KEYSYM,
+                InputUtil.UNKNOWN_KEY.getCode(),
+                "category.orderly"
+        ));
         ClientTickEvents.END_CLIENT_TICK.register(event -> {
+            var profiler = event.getProfiler();
+            profiler.push("orderly");
+            LineOfSightCache.tick();
+            FocusTracker.tick();
+            profiler.push("track");
+            EntityTracker.tick(event);
+            HealthTracker.tick(event);
+            profiler.swap("scan");
+            RenderCandidates.tick(event);
+            profiler.swap("snapshot");
+            CandidateSnapshot.tick();
+            profiler.swap("prepare");
+            PlatePreparer.tick();
+            profiler.pop();
+            profiler.pop();
             if (event.isWindowFocused() && toggleKey.wasPressed()) {
                 OrderlyConfigManager.getConfig().toggleDraw();
                 OrderlyConfigManager.save();
             }
+            if (event.isWindowFocused() && probeKey.wasPressed()) {
+                StyleProbe.probeFocused(event);
+            }
+            if (event.isWindowFocused() && latencyKey.wasPressed()) {
+                // report once the file is written, back on the client thread
+                LatencyStats.dump(FabricLoader.getInstance().getConfigDir()).whenComplete((file, error) ->
+                        event.execute(() -> event.inGameHud.getChatHud().addMessage(error == null
+                                ? new TranslatableText("orderly.latency.dumped", file.getFileName().toString())
+                                : new TranslatableText("orderly.latency.failed")
+                        ))
+                );
+            }
         });
     }
 }
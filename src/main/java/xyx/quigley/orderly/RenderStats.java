@@ -0,0 +1,121 @@
+package xyx.quigley.orderly;
+
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.EntityStateStore;
+import xyx.quigley.orderly.tracking.LineOfSightCache;
+
+import java.util.List;
+
+/**
+ * counters of the last tick and frame, shown on the debug screen.
+ * <p>
+ * the tick counters are written by {@link xyx.quigley.orderly.tracking.RenderCandidates}, the frame counters by
+ * {@link HealthBarRenderer}. everything runs on the client thread, so plain fields are enough.
+ */
+public final class RenderStats {
+
+    // tick
+    static int scanned;
+    static int culledByDistance;
+    static int culledByBlacklist;
+    static int culledAsUndamaged;
+    static int candidates;
+    // frame
+    static int checked;
+    static int culledByFrustum;
+    static int culledBySections;
+    static int culledByLineOfSight;
+    static int culledByBudget;
+    static int plates;
+    static int vertices;
+    static int instancedBars;
+
+    private RenderStats() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static void beginTick() {
+        scanned = 0;
+        culledByDistance = 0;
+        culledByBlacklist = 0;
+        culledAsUndamaged = 0;
+        candidates = 0;
+    }
+
+    public static void onScanned() {
+        scanned++;
+    }
+
+    public static void onCulledByDistance() {
+        culledByDistance++;
+    }
+
+    public static void onCulledByBlacklist() {
+        culledByBlacklist++;
+    }
+
+    public static void onCulledAsUndamaged() {
+        culledAsUndamaged++;
+    }
+
+    public static void onCandidate() {
+        candidates++;
+    }
+
+    static void beginFrame() {
+        checked = 0;
+        culledByFrustum = 0;
+        culledBySections = 0;
+        culledByLineOfSight = 0;
+        culledByBudget = 0;
+        plates = 0;
+        vertices = 0;
+        instancedBars = 0;
+        LineOfSightCache.resetCounters();
+    }
+
+    /**
+     * adds the debug screen lines
+     */
+    public static void appendDebugText(List<String> lines) {
+        lines.add(String.format(
+                "Orderly tick: %d scanned, %d far, %d blacklisted, %d undamaged, %d candidates",
+                scanned,
+                culledByDistance,
+                culledByBlacklist,
+                culledAsUndamaged,
+                candidates
+        ));
+        lines.add(String.format(
+                "Orderly frame: %d checked, %d frustum, %d sections, %d LoS, %d budget",
+                checked,
+                culledByFrustum,
+                culledBySections,
+                culledByLineOfSight,
+                culledByBudget
+        ));
+        long hits = LineOfSightCache.getHits();
+        long lookups = hits + LineOfSightCache.getMisses();
+        lines.add(String.format(
+                "Orderly LoS: %d hits, %d misses (%d%% hit rate, %d ticks TTL)",
+                hits,
+                LineOfSightCache.getMisses(),
+                lookups == 0 ? 0 : hits * 100 / lookups,
+                OrderlyConfigManager.getConfig().getLineOfSightCacheTicks()
+        ));
+        lines.add(String.format(
+                "Orderly out: %d plates, %d vertices, %d instanced bars",
+                plates,
+                vertices,
+                instancedBars
+        ));
+        lines.add(String.format(
+                "Orderly state: %d/%d entities, evicted %d unloaded, %d reset, %d over cap",
+                EntityStateStore.size(),
+                EntityStateStore.MAX_ENTRIES,
+                EntityStateStore.getUnloadEvictions(),
+                EntityStateStore.getResetEvictions(),
+                EntityStateStore.getCapacityEvictions()
+        ));
+    }
+}
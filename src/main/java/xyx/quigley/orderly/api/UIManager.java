@@ -4,6 +4,8 @@ import net.minecraft.util.Identifier;
 import xyx.quigley.orderly.Orderly;
 import xyx.quigley.orderly.ui.DefaultUIStyle;
 
+import javax.annotation.Nullable;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -39,7 +41,16 @@ public final class UIManager {
         return currentID;
     }
 
-    public Set<Identifier> getRegisteredStyles() {
+    public static Set<Identifier> getRegisteredStyles() {
         return Collections.unmodifiableSet(STYLES.keySet());
     }
+
+    /**
+     * @return the style registered for the identifier, or {@code null} if there is none
+     */
+    @Nullable
+    public static UIStyle getStyle(Identifier identifier) {
+        var style = STYLES.get(identifier);
+        return style != null ? style.get() : null;
+    }
 }
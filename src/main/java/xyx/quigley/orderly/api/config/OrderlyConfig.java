@@ -1,5 +1,6 @@
 package xyx.quigley.orderly.api.config;
 
+import java.util.List;
 import java.util.Set;
 
 public interface OrderlyConfig {
@@ -49,6 +50,74 @@ public interface OrderlyConfig {
 
     boolean isDebugInfoEnabled();
 
+    /**
+     * how many ticks a line of sight result may be reused for, {@code 0} disables the cache
+     */
+    int getLineOfSightCacheTicks();
+
+    /**
+     * whether bar quads should be drawn with GPU instancing where the GL context supports it
+     */
+    boolean useInstancedBars();
+
+    /**
+     * the on-screen height of the name text, in pixels, from which on plates are drawn in full detail,
+     * {@code 0} disables the level of detail tiers
+     */
+    int getLodFullTextPixels();
+
+    /**
+     * the on-screen height of the name text, in pixels, from which on plates show the bar and the name,
+     * smaller plates only show the bar
+     */
+    int getLodNameTextPixels();
+
+    /**
+     * whether the farthest level of detail draws a colored dot instead of the bar
+     */
+    boolean useLodFarDot();
+
+    /**
+     * the most plates drawn in a single frame, {@code 0} for no limit
+     */
+    int getMaxPlatesPerFrame();
+
+    /**
+     * whether plates of entities in chunk sections the world renderer culled are skipped
+     */
+    boolean cullsHiddenSections();
+
+    /**
+     * the name of the palette health bars are colored with, {@code default}, {@code colorblind}, {@code viridis}
+     * or one of {@link #getPalettes()}
+     */
+    String getHealthPalette();
+
+    /**
+     * custom palettes, as {@code name=#rrggbb,#rrggbb,...} from the color for no health to the one for full health
+     */
+    List<String> getPalettes();
+
+    /**
+     * palettes for single entity types, as {@code namespace:type=name}
+     */
+    List<String> getTypePalettes();
+
+    /**
+     * whether all-entities mode only shows entities whose health changed within {@link #getDamagedWindowTicks()}
+     */
+    boolean showingOnlyDamaged();
+
+    /**
+     * how many ticks a bar stays after the health of its entity changed, with {@link #showingOnlyDamaged()}
+     */
+    int getDamagedWindowTicks();
+
+    /**
+     * over how many ticks at the end of the window the bar fades out
+     */
+    int getDamagedFadeTicks();
+
     Set<String> getBlacklist();
 
     Set<String> getBosses();
@@ -0,0 +1,47 @@
+package xyx.quigley.orderly.config;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.util.registry.Registry;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+
+/**
+ * the boss and blacklist sets and the type palettes of the config compiled into tables indexed by raw entity type
+ * id, so the render path does not have to build and hash an identifier string for every entity.
+ * <p>
+ * rebuilt by {@link OrderlyConfigManager} whenever the config is loaded or saved.
+ */
+public final class EntityTypeFlags {
+
+    public static final byte BOSS = TypeFlagTable.BOSS;
+    public static final byte BLACKLISTED = TypeFlagTable.BLACKLISTED;
+
+    private static final TypeFlagTable<EntityType<?>> TABLE = new TypeFlagTable<>(
+            Registry.ENTITY_TYPE::getRawId,
+            type -> String.valueOf(Registry.ENTITY_TYPE.getId(type)),
+            HealthPalettes::getTypePalette,
+            OrderlyConfigManager::getConfig
+    );
+
+    private EntityTypeFlags() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static boolean isBoss(EntityType<?> type) {
+        return (get(type) & BOSS) != 0;
+    }
+
+    /**
+     * @return the health color palette of the type, see {@link HealthPalettes#getTypePalette(String)}
+     */
+    public static int getPalette(EntityType<?> type) {
+        return TABLE.getPalette(type);
+    }
+
+    public static byte get(EntityType<?> type) {
+        return TABLE.get(type);
+    }
+
+    static void rebuild(OrderlyConfig config) {
+        TABLE.rebuild(Registry.ENTITY_TYPE, Registry.ENTITY_TYPE.getIds().size(), config);
+    }
+}
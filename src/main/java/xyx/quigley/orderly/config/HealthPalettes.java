@@ -0,0 +1,127 @@
+package xyx.quigley.orderly.config;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import xyx.quigley.orderly.Orderly;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.util.HealthColor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * compiles the palettes of the config into the lookup tables of {@link HealthColor}.
+ * <p>
+ * palettes are written as {@code name=#rrggbb,#rrggbb,...}, from the color for no health to the one for full
+ * health. entity types are assigned a palette with {@code namespace:type=name}.
+ * <p>
+ * recompiled by {@link OrderlyConfigManager} whenever the config is loaded or saved.
+ */
+public final class HealthPalettes {
+
+    public static final String DEFAULT = "default";
+    /**
+     * palette indices are stored as bytes per entity type
+     */
+    private static final int MAX_PALETTES = Byte.MAX_VALUE;
+    private static final Map<String, int[]> BUILT_IN = Map.of(
+            // vermillion, orange, yellow, sky blue, blue of the Okabe-Ito palette
+            "colorblind", new int[]{0xD55E00, 0xE69F00, 0xF0E442, 0x56B4E9, 0x0072B2},
+            "viridis", new int[]{0x440154, 0x3B528B, 0x21908D, 0x5DC863, 0xFDE725}
+    );
+
+    private static volatile Object2IntMap<String> typePalettes = Object2IntMaps.emptyMap();
+
+    private HealthPalettes() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * @return the index of the palette assigned to the entity type, {@code 0} for the health palette
+     */
+    public static int getTypePalette(String typeId) {
+        return typePalettes.getInt(typeId);
+    }
+
+    public static boolean isValidPalette(String entry) {
+        int separator = entry.indexOf('=');
+        return separator > 0 && parseStops(entry.substring(separator + 1)) != null;
+    }
+
+    static void compile(OrderlyConfig config) {
+        var palettes = new LinkedHashMap<String, int[]>();
+        palettes.put(DEFAULT, HealthColor.getDefaultTable());
+        BUILT_IN.forEach((name, stops) -> palettes.put(name, HealthColor.createTable(stops)));
+        for (var entry : config.getPalettes()) {
+            int separator = entry.indexOf('=');
+            var stops = separator > 0 ? parseStops(entry.substring(separator + 1)) : null;
+            if (stops == null) {
+                Orderly.getLogger().warn("ignoring invalid palette {}", entry);
+                continue;
+            }
+            palettes.put(entry.substring(0, separator).trim().toLowerCase(Locale.ROOT), HealthColor.createTable(stops));
+        }
+
+        var tables = new ArrayList<int[]>();
+        var healthPalette = palettes.get(config.getHealthPalette().trim().toLowerCase(Locale.ROOT));
+        if (healthPalette == null) {
+            Orderly.getLogger().warn("unknown health palette {}, using the default", config.getHealthPalette());
+            healthPalette = palettes.get(DEFAULT);
+        }
+        tables.add(healthPalette);
+        var indices = new Object2IntOpenHashMap<String>();
+        for (var palette : palettes.entrySet()) {
+            if (tables.size() == MAX_PALETTES) {
+                Orderly.getLogger().warn("too many palettes, only the first {} can be assigned", MAX_PALETTES - 1);
+                break;
+            }
+            indices.put(palette.getKey(), tables.size());
+            tables.add(palette.getValue());
+        }
+
+        var types = new Object2IntOpenHashMap<String>();
+        for (var entry : config.getTypePalettes()) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                Orderly.getLogger().warn("ignoring invalid type palette {}", entry);
+                continue;
+            }
+            var name = entry.substring(separator + 1).trim().toLowerCase(Locale.ROOT);
+            if (!indices.containsKey(name)) {
+                Orderly.getLogger().warn("ignoring type palette {}, there is no palette named {}", entry, name);
+                continue;
+            }
+            types.put(entry.substring(0, separator).trim(), indices.getInt(name));
+        }
+        HealthColor.setTables(tables.toArray(new int[0][]));
+        typePalettes = types;
+    }
+
+    /**
+     * @return the rgb colors, or {@code null} if any of them is not a {@code #rrggbb} color
+     */
+    @Nullable
+    private static int[] parseStops(String colors) {
+        var parts = colors.split(",");
+        var stops = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            var part = parts[i].trim();
+            if (part.startsWith("#")) {
+                part = part.substring(1);
+            }
+            if (part.length() != 6) {
+                return null;
+            }
+            try {
+                stops[i] = Integer.parseInt(part, 16);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return stops;
+    }
+}
@@ -12,6 +12,8 @@ import net.minecraft.util.Identifier;
 import xyx.quigley.orderly.Orderly;
 import xyx.quigley.orderly.api.config.OrderlyConfig;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -97,6 +99,72 @@ public class OrderlyConfigImpl implements OrderlyConfig {
 
     private boolean enableDebugInfo = false;
 
+    /**
+     * how many ticks a line of sight check may be reused for, as long as nothing moved
+     */
+    private int lineOfSightCacheTicks = 5;
+
+    /**
+     * draw the bar quads with a single instanced draw call, falls back to regular rendering if unsupported
+     */
+    private boolean instancedBars = false;
+
+    /**
+     * plates whose name is at least this many pixels tall on screen show everything, 0 always draws the full plate.
+     * off by default, 6 drops the labels beyond about 15 blocks on a 1080p screen
+     */
+    private int lodFullTextPixels = 0;
+
+    /**
+     * plates whose name is at least this many pixels tall on screen still show the name, smaller ones only the bar
+     */
+    private int lodNameTextPixels = 3;
+
+    /**
+     * draw a colored dot instead of the bar for plates too small to show the name
+     */
+    private boolean lodFarDot = false;
+
+    /**
+     * the most plates drawn per frame, the most important ones win and the rest take turns. 0 means no limit
+     */
+    private int maxPlatesPerFrame = 64;
+
+    /**
+     * skip plates of entities in chunk sections that were not drawn this frame, e.g. in caves below the player
+     */
+    private boolean cullHiddenSections = true;
+
+    /**
+     * the palette health bars are colored with: default, colorblind, viridis or one of the palettes below
+     */
+    private String healthPalette = HealthPalettes.DEFAULT;
+
+    /**
+     * custom palettes as name=#rrggbb,#rrggbb,..., from no health to full health
+     */
+    private List<String> palettes = new ArrayList<>();
+
+    /**
+     * palettes for single entity types as namespace:type=name
+     */
+    private List<String> typePalettes = new ArrayList<>();
+
+    /**
+     * in all-entities mode, only show bars of entities whose health changed recently
+     */
+    private boolean showOnlyDamaged = false;
+
+    /**
+     * how many ticks a bar stays after the health changed, when only showing damaged entities
+     */
+    private int damagedWindowTicks = 100;
+
+    /**
+     * over how many ticks at the end of that window the bar fades out
+     */
+    private int damagedFadeTicks = 20;
+
     private Set<String> blacklist = Sets.newHashSet(blacklistDefaults);
 
     private Set<String> bosses = Sets.newHashSet(bossDefaults);
@@ -311,6 +379,149 @@ public class OrderlyConfigImpl implements OrderlyConfig {
                         config.isDebugInfoEnabled()
                 ).setDefaultValue(false).setSaveConsumer(b -> config.enableDebugInfo = b).build())
 
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.lineOfSightCacheTicks", Orderly.MODID)
+                        ),
+                        config.getLineOfSightCacheTicks()
+                )
+                        .setDefaultValue(5)
+                        .setMin(0)
+                        .setSaveConsumer(i -> config.lineOfSightCacheTicks = i)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startBooleanToggle(
+                        new TranslatableText(
+                                String.format("config.%s.instancedBars", Orderly.MODID)
+                        ),
+                        config.useInstancedBars()
+                ).setDefaultValue(false).setSaveConsumer(b -> config.instancedBars = b).build())
+
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.lodFullTextPixels", Orderly.MODID)
+                        ),
+                        config.getLodFullTextPixels()
+                )
+                        .setDefaultValue(0)
+                        .setMin(0)
+                        .setSaveConsumer(i -> config.lodFullTextPixels = i)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.lodNameTextPixels", Orderly.MODID)
+                        ),
+                        config.getLodNameTextPixels()
+                )
+                        .setDefaultValue(3)
+                        .setMin(0)
+                        .setSaveConsumer(i -> config.lodNameTextPixels = i)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startBooleanToggle(
+                        new TranslatableText(
+                                String.format("config.%s.lodFarDot", Orderly.MODID)
+                        ),
+                        config.useLodFarDot()
+                ).setDefaultValue(false).setSaveConsumer(b -> config.lodFarDot = b).build())
+
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.maxPlatesPerFrame", Orderly.MODID)
+                        ),
+                        config.getMaxPlatesPerFrame()
+                )
+                        .setDefaultValue(64)
+                        .setMin(0)
+                        .setSaveConsumer(i -> config.maxPlatesPerFrame = i)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startBooleanToggle(
+                        new TranslatableText(
+                                String.format("config.%s.cullHiddenSections", Orderly.MODID)
+                        ),
+                        config.cullsHiddenSections()
+                ).setDefaultValue(true).setSaveConsumer(b -> config.cullHiddenSections = b).build())
+
+                .addEntry(ConfigEntryBuilder.create().startStrField(
+                        new TranslatableText(
+                                String.format("config.%s.healthPalette", Orderly.MODID)
+                        ),
+                        config.getHealthPalette()
+                )
+                        .setDefaultValue(HealthPalettes.DEFAULT)
+                        .setSaveConsumer(s -> config.healthPalette = s)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startStrList(
+                        new TranslatableText(
+                                String.format("config.%s.palettes", Orderly.MODID)
+                        ),
+                        Lists.newArrayList(config.getPalettes()))
+                        .setCellErrorSupplier(value ->
+                                Optional.ofNullable(
+                                        !HealthPalettes.isValidPalette(value) ?
+                                                new TranslatableText(
+                                                        "config.orderly.error.invalid_palette", value
+                                                )
+                                                : null
+                                ))
+                        .setDefaultValue(new ArrayList<>())
+                        .setSaveConsumer(strings -> config.palettes = new ArrayList<>(strings))
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startStrList(
+                        new TranslatableText(
+                                String.format("config.%s.typePalettes", Orderly.MODID)
+                        ),
+                        Lists.newArrayList(config.getTypePalettes()))
+                        .setCellErrorSupplier(value ->
+                                Optional.ofNullable(
+                                        !isValidTypePalette(value) ?
+                                                new TranslatableText(
+                                                        "config.orderly.error.invalid_type_palette", value
+                                                )
+                                                : null
+                                ))
+                        .setDefaultValue(new ArrayList<>())
+                        .setSaveConsumer(strings ->
+                                config.typePalettes = strings.stream()
+                                        .filter(OrderlyConfigImpl::isValidTypePalette)
+                                        .map(value -> new Identifier(value.substring(0, value.indexOf('=')).trim())
+                                                + value.substring(value.indexOf('=')))
+                                        .collect(Collectors.toCollection(ArrayList::new)))
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startBooleanToggle(
+                        new TranslatableText(
+                                String.format("config.%s.showOnlyDamaged", Orderly.MODID)
+                        ),
+                        config.showingOnlyDamaged()
+                ).setDefaultValue(false).setSaveConsumer(b -> config.showOnlyDamaged = b).build())
+
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.damagedWindowTicks", Orderly.MODID)
+                        ),
+                        config.getDamagedWindowTicks()
+                )
+                        .setDefaultValue(100)
+                        .setMin(1)
+                        .setSaveConsumer(i -> config.damagedWindowTicks = i)
+                        .build())
+
+                .addEntry(ConfigEntryBuilder.create().startIntField(
+                        new TranslatableText(
+                                String.format("config.%s.damagedFadeTicks", Orderly.MODID)
+                        ),
+                        config.getDamagedFadeTicks()
+                )
+                        .setDefaultValue(20)
+                        .setMin(0)
+                        .setSaveConsumer(i -> config.damagedFadeTicks = i)
+                        .build())
+
                 .addEntry(ConfigEntryBuilder.create().startStrList(
                         new TranslatableText(
                                 String.format("config.%s.blacklist", Orderly.MODID)
@@ -476,6 +687,71 @@ public class OrderlyConfigImpl implements OrderlyConfig {
         return enableDebugInfo;
     }
 
+    @Override
+    public int getLineOfSightCacheTicks() {
+        return lineOfSightCacheTicks;
+    }
+
+    @Override
+    public boolean useInstancedBars() {
+        return instancedBars;
+    }
+
+    @Override
+    public int getLodFullTextPixels() {
+        return lodFullTextPixels;
+    }
+
+    @Override
+    public int getLodNameTextPixels() {
+        return lodNameTextPixels;
+    }
+
+    @Override
+    public boolean useLodFarDot() {
+        return lodFarDot;
+    }
+
+    @Override
+    public int getMaxPlatesPerFrame() {
+        return maxPlatesPerFrame;
+    }
+
+    @Override
+    public boolean cullsHiddenSections() {
+        return cullHiddenSections;
+    }
+
+    @Override
+    public String getHealthPalette() {
+        return healthPalette;
+    }
+
+    @Override
+    public List<String> getPalettes() {
+        return palettes;
+    }
+
+    @Override
+    public List<String> getTypePalettes() {
+        return typePalettes;
+    }
+
+    @Override
+    public boolean showingOnlyDamaged() {
+        return showOnlyDamaged;
+    }
+
+    @Override
+    public int getDamagedWindowTicks() {
+        return damagedWindowTicks;
+    }
+
+    @Override
+    public int getDamagedFadeTicks() {
+        return damagedFadeTicks;
+    }
+
     @Override
     public Set<String> getBlacklist() {
         return blacklist;
@@ -486,6 +762,13 @@ public class OrderlyConfigImpl implements OrderlyConfig {
         return bosses;
     }
 
+    private static boolean isValidTypePalette(String value) {
+        int separator = value.indexOf('=');
+        return separator > 0
+                && separator < value.length() - 1
+                && Identifier.isValid(value.substring(0, separator).trim());
+    }
+
     public void toggleDraw() {
         draw = !draw;
     }
@@ -27,11 +27,19 @@ public class OrderlyConfigManager {
 
     private static OrderlyConfigImpl config;
     private static Path configFile;
+    private static int revision;
 
     public static OrderlyConfigImpl getConfig() {
         return Optional.ofNullable(config).orElseGet(OrderlyConfigManager::init);
     }
 
+    /**
+     * @return a counter that changes every time the config is saved, for caches that depend on config values
+     */
+    public static int getRevision() {
+        return revision;
+    }
+
     public static OrderlyConfigImpl init() {
         configFile = FabricLoader.getInstance().getConfigDir().resolve(Orderly.MODID + ".json");
         if (!Files.exists(configFile)) {
@@ -42,7 +50,10 @@ public class OrderlyConfigManager {
             save().join();
         }
         load().thenApply(c -> config = c).join();
-        return Objects.requireNonNull(config, "failed to init config");
+        Objects.requireNonNull(config, "failed to init config");
+        HealthPalettes.compile(config);
+        EntityTypeFlags.rebuild(config);
+        return config;
     }
 
     public static CompletableFuture<OrderlyConfigImpl> load() {
@@ -62,6 +73,11 @@ public class OrderlyConfigManager {
 
     public static CompletableFuture<Void> save() {
         Orderly.getLogger().trace("saving orderly config file to {}", configFile);
+        if (config != null) {
+            HealthPalettes.compile(config);
+            EntityTypeFlags.rebuild(config);
+            revision++;
+        }
         return CompletableFuture.runAsync(() -> {
             try (BufferedWriter writer = Files.newBufferedWriter(configFile)) {
                 GSON.toJson(Optional.ofNullable(config).orElseGet(OrderlyConfigImpl::new), writer);
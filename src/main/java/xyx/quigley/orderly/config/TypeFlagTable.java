@@ -0,0 +1,124 @@
+package xyx.quigley.orderly.config;
+
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * the boss and blacklist flags and the palette of every type of a registry, in tables indexed by raw id.
+ * <p>
+ * types are resolved against the config the first time they are looked up, or all at once by
+ * {@link #rebuild(Iterable, int, OrderlyConfig)}. the table does not know the registry itself, so it works for any
+ * kind of type.
+ * <p>
+ * lookups may come from any thread. both tables are published together and never written once published, a type
+ * resolved on lookup is written into copies under the lock of the table.
+ */
+public final class TypeFlagTable<T> {
+
+    public static final byte BOSS = 0x1;
+    public static final byte BLACKLISTED = 0x2;
+    /**
+     * marks an entry as computed, the table is zero filled for types that have not been looked at yet
+     */
+    private static final byte RESOLVED = 0x40;
+
+    private final ToIntFunction<T> rawIds;
+    private final Function<T, String> ids;
+    private final ToIntFunction<String> typePalettes;
+    private final Supplier<OrderlyConfig> config;
+    private volatile Tables tables = new Tables(new byte[0], new byte[0]);
+
+    /**
+     * @param rawIds       the raw registry id of a type
+     * @param ids          the identifier string of a type, only asked for when a type is resolved
+     * @param typePalettes the palette of an identifier string
+     * @param config       the config types are resolved against when they are looked up
+     */
+    public TypeFlagTable(ToIntFunction<T> rawIds,
+                         Function<T, String> ids,
+                         ToIntFunction<String> typePalettes,
+                         Supplier<OrderlyConfig> config) {
+        this.rawIds = rawIds;
+        this.ids = ids;
+        this.typePalettes = typePalettes;
+        this.config = config;
+    }
+
+    public byte get(T type) {
+        int id = rawIds.applyAsInt(type);
+        return resolve(type, id).flags[id];
+    }
+
+    public int getPalette(T type) {
+        int id = rawIds.applyAsInt(type);
+        return resolve(type, id).palettes[id];
+    }
+
+    /**
+     * resolves all types again
+     *
+     * @param size the number of raw ids of the registry
+     */
+    public void rebuild(Iterable<T> types, int size, OrderlyConfig config) {
+        var rebuilt = new Tables(new byte[size], new byte[size]);
+        for (var type : types) {
+            int id = rawIds.applyAsInt(type);
+            if (id >= 0 && id < size) {
+                compute(type, id, config, rebuilt);
+            }
+        }
+        synchronized (this) {
+            tables = rebuilt;
+        }
+    }
+
+    /**
+     * @return tables in which the type is resolved
+     */
+    private Tables resolve(T type, int id) {
+        var current = tables;
+        if (id < current.flags.length && current.flags[id] != 0) {
+            return current;
+        }
+        synchronized (this) {
+            current = tables;
+            if (id < current.flags.length && current.flags[id] != 0) {
+                return current;
+            }
+            // types registered after the last rebuild grow the tables
+            int size = Math.max(current.flags.length, id + 1);
+            var resolved = new Tables(Arrays.copyOf(current.flags, size), Arrays.copyOf(current.palettes, size));
+            compute(type, id, config.get(), resolved);
+            tables = resolved;
+            return resolved;
+        }
+    }
+
+    private void compute(T type, int id, OrderlyConfig config, Tables tables) {
+        var idString = ids.apply(type);
+        byte value = RESOLVED;
+        if (config.getBosses().contains(idString)) {
+            value |= BOSS;
+        }
+        if (config.getBlacklist().contains(idString)) {
+            value |= BLACKLISTED;
+        }
+        tables.palettes[id] = (byte) typePalettes.applyAsInt(idString);
+        tables.flags[id] = value;
+    }
+
+    private static final class Tables {
+
+        private final byte[] flags;
+        private final byte[] palettes;
+
+        private Tables(byte[] flags, byte[] palettes) {
+            this.flags = flags;
+            this.palettes = palettes;
+        }
+    }
+}
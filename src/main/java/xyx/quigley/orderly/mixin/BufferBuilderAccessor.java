@@ -0,0 +1,15 @@
+package xyx.quigley.orderly.mixin;
+
+import net.minecraft.client.render.BufferBuilder;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(BufferBuilder.class)
+public interface BufferBuilderAccessor {
+
+    /**
+     * the vertices written since the buffer began building
+     */
+    @Accessor("vertexCount")
+    int orderly$getVertexCount();
+}
@@ -0,0 +1,12 @@
+package xyx.quigley.orderly.mixin;
+
+import net.minecraft.client.render.chunk.ChunkBuilder;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(targets = "net.minecraft.client.render.WorldRenderer$ChunkInfo")
+public interface ChunkInfoAccessor {
+
+    @Accessor("chunk")
+    ChunkBuilder.BuiltChunk orderly$getChunk();
+}
@@ -0,0 +1,23 @@
+package xyx.quigley.orderly.mixin;
+
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.SynchronizeTagsS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import xyx.quigley.orderly.ui.IconRegistry;
+
+/**
+ * re-resolves the icons of entity type tags once the server sent its tags, they may differ from the ones the icons
+ * were resolved with
+ */
+@Mixin(ClientPlayNetworkHandler.class)
+public class MixinClientPlayNetworkHandler {
+
+    @Inject(method = "onSynchronizeTags", at = @At("TAIL"))
+    private void onSynchronizeTags(SynchronizeTagsS2CPacket packet, CallbackInfo ci) {
+        // only reached on the client thread, the network thread call hands the packet over and bails out before
+        IconRegistry.invalidateTags();
+    }
+}
@@ -0,0 +1,24 @@
+package xyx.quigley.orderly.mixin;
+
+import net.minecraft.client.gui.hud.DebugHud;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import xyx.quigley.orderly.RenderStats;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+
+import java.util.List;
+
+@Mixin(DebugHud.class)
+public class MixinDebugHud {
+
+    @Inject(method = "getLeftText", at = @At("RETURN"))
+    private void getLeftText(CallbackInfoReturnable<List<String>> cir) {
+        if (OrderlyConfigManager.getConfig().canDraw()) {
+            var lines = cir.getReturnValue();
+            lines.add("");
+            RenderStats.appendDebugText(lines);
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package xyx.quigley.orderly.mixin;
 
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.util.math.Matrix4f;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import xyx.quigley.orderly.HealthBarRenderer;
+import xyx.quigley.orderly.tracking.VisibleSections;
 
 import javax.annotation.Nullable;
 
@@ -20,6 +23,10 @@ public class MixinHealthBarRender {
     @Nullable
     private Frustum capturedFrustum;
 
+    @Shadow
+    @Final
+    private ObjectArrayList<?> visibleChunks;
+
     @Inject(method = "render", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/render/WorldRenderer;checkEmpty(Lnet/minecraft/client/util/math/MatrixStack;)V", ordinal = 0))
     private void render(MatrixStack matrices,
                         float tickDelta,
@@ -30,6 +37,7 @@ public class MixinHealthBarRender {
                         LightmapTextureManager lightmapTextureManager,
                         Matrix4f projection,
                         CallbackInfo ci) {
+        VisibleSections.capture(this.visibleChunks);
         HealthBarRenderer.render(
                 matrices,
                 tickDelta,
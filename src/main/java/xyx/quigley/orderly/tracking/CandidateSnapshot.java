@@ -0,0 +1,210 @@
+package xyx.quigley.orderly.tracking;
+
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.mob.Monster;
+import xyx.quigley.orderly.config.EntityTypeFlags;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * a copy of the state of all {@link RenderCandidates}, taken at the end of every client tick into primitive arrays.
+ * <p>
+ * snapshots are double buffered: the tick fills the spare buffer and publishes it with an atomic swap, readers
+ * get the published one without any locking. a snapshot is never changed while it is published. readers on other
+ * threads {@link #pin()} it on the client thread before handing it over, so a pinned buffer is not reused.
+ */
+public final class CandidateSnapshot {
+
+    public static final byte BOSS = 0x1;
+    public static final byte MONSTER = 0x2;
+
+    private static final AtomicReference<CandidateSnapshot> PUBLISHED = new AtomicReference<>(new CandidateSnapshot());
+    private static CandidateSnapshot spare = new CandidateSnapshot();
+
+    // the plate the render thread is drawing right now, see #setRendering
+    private static CandidateSnapshot rendering;
+    private static int renderingIndex = -1;
+
+    private final AtomicInteger pins = new AtomicInteger();
+    private int size;
+    private LivingEntity[] entities = new LivingEntity[64];
+    private int[] ids = new int[64];
+    private double[] prevX = new double[64];
+    private double[] prevY = new double[64];
+    private double[] prevZ = new double[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private float[] heights = new float[64];
+    private float[] healths = new float[64];
+    private float[] maxHealths = new float[64];
+    private int[] armors = new int[64];
+    private int[] hurtTimes = new int[64];
+    private byte[] flags = new byte[64];
+    private byte[] palettes = new byte[64];
+
+    private CandidateSnapshot() {
+    }
+
+    /**
+     * copies the current candidates and publishes the copy, needs to run right after {@link RenderCandidates#tick}
+     */
+    public static void tick() {
+        var back = spare;
+        if (back.pins.get() != 0) {
+            // still read by another thread, leave it to that thread
+            back = new CandidateSnapshot();
+        }
+        back.fill();
+        spare = PUBLISHED.getAndSet(back);
+    }
+
+    public static CandidateSnapshot get() {
+        return PUBLISHED.get();
+    }
+
+    /**
+     * marks the plate that is drawn next, so styles read its state from the snapshot
+     *
+     * @param index the index in the snapshot, or {@code -1} when the plate is not from a snapshot
+     */
+    public static void setRendering(CandidateSnapshot snapshot, int index) {
+        rendering = snapshot;
+        renderingIndex = index;
+    }
+
+    public static float getHealth(LivingEntity entity) {
+        return isRendering(entity) ? rendering.healths[renderingIndex] : entity.getHealth();
+    }
+
+    public static float getMaxHealth(LivingEntity entity) {
+        return isRendering(entity) ? rendering.maxHealths[renderingIndex] : entity.getMaxHealth();
+    }
+
+    public static int getArmor(LivingEntity entity) {
+        return isRendering(entity) ? rendering.armors[renderingIndex] : entity.getArmor();
+    }
+
+    private static boolean isRendering(LivingEntity entity) {
+        return renderingIndex >= 0 && rendering.entities[renderingIndex] == entity;
+    }
+
+    /**
+     * keeps the snapshot from being reused until {@link #release()} is called, must be called on the client thread
+     */
+    public CandidateSnapshot pin() {
+        pins.incrementAndGet();
+        return this;
+    }
+
+    public void release() {
+        pins.decrementAndGet();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LivingEntity getEntity(int index) {
+        return entities[index];
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public double getX(int index, float tickDelta) {
+        return prevX[index] + (x[index] - prevX[index]) * tickDelta;
+    }
+
+    public double getY(int index, float tickDelta) {
+        return prevY[index] + (y[index] - prevY[index]) * tickDelta;
+    }
+
+    public double getZ(int index, float tickDelta) {
+        return prevZ[index] + (z[index] - prevZ[index]) * tickDelta;
+    }
+
+    public double getSquaredDistance(int index, double x, double y, double z) {
+        double dx = this.x[index] - x;
+        double dy = this.y[index] - y;
+        double dz = this.z[index] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public float getHeight(int index) {
+        return heights[index];
+    }
+
+    public float getHealth(int index) {
+        return healths[index];
+    }
+
+    public float getMaxHealth(int index) {
+        return maxHealths[index];
+    }
+
+    public int getHurtTime(int index) {
+        return hurtTimes[index];
+    }
+
+    public boolean isBoss(int index) {
+        return (flags[index] & BOSS) != 0;
+    }
+
+    public boolean isMonster(int index) {
+        return (flags[index] & MONSTER) != 0;
+    }
+
+    public int getPalette(int index) {
+        return palettes[index];
+    }
+
+    private void fill() {
+        int count = RenderCandidates.size();
+        if (entities.length < count) {
+            grow(Math.max(count, entities.length * 2));
+        }
+        // drop references to entities that are no longer candidates
+        Arrays.fill(entities, count, Math.max(count, size), null);
+        for (int i = 0; i < count; i++) {
+            var entity = RenderCandidates.get(i);
+            entities[i] = entity;
+            ids[i] = entity.getId();
+            prevX[i] = entity.prevX;
+            prevY[i] = entity.prevY;
+            prevZ[i] = entity.prevZ;
+            x[i] = entity.getX();
+            y[i] = entity.getY();
+            z[i] = entity.getZ();
+            heights[i] = entity.getHeight();
+            healths[i] = entity.getHealth();
+            maxHealths[i] = entity.getMaxHealth();
+            armors[i] = entity.getArmor();
+            hurtTimes[i] = entity.hurtTime;
+            flags[i] = (byte) ((RenderCandidates.isBoss(i) ? BOSS : 0) | (entity instanceof Monster ? MONSTER : 0));
+            palettes[i] = (byte) EntityTypeFlags.getPalette(entity.getType());
+        }
+        size = count;
+    }
+
+    private void grow(int length) {
+        entities = Arrays.copyOf(entities, length);
+        ids = Arrays.copyOf(ids, length);
+        prevX = Arrays.copyOf(prevX, length);
+        prevY = Arrays.copyOf(prevY, length);
+        prevZ = Arrays.copyOf(prevZ, length);
+        x = Arrays.copyOf(x, length);
+        y = Arrays.copyOf(y, length);
+        z = Arrays.copyOf(z, length);
+        heights = Arrays.copyOf(heights, length);
+        healths = Arrays.copyOf(healths, length);
+        maxHealths = Arrays.copyOf(maxHealths, length);
+        armors = Arrays.copyOf(armors, length);
+        hurtTimes = Arrays.copyOf(hurtTimes, length);
+        flags = Arrays.copyOf(flags, length);
+        palettes = Arrays.copyOf(palettes, length);
+    }
+}
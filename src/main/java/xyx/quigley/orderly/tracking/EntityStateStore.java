@@ -0,0 +1,182 @@
+package xyx.quigley.orderly.tracking;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import xyx.quigley.orderly.util.IntSlotMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * the per-entity state of all caches, keyed by network entity id.
+ * <p>
+ * every entity gets a slot, found through an {@link IntSlotMap}. caches attach their objects to the slot with a
+ * {@link Key}, or keep primitive columns indexed by the slot and check {@link #getGeneration(int)} to tell when
+ * the slot went to another entity. slots are freed when the entity unloads and all at once when the world
+ * changes or the client disconnects. there are never more than {@link #MAX_ENTRIES} slots, when all are taken the
+ * least recently used entity is evicted, with the clock algorithm.
+ * <p>
+ * the cap is a number of entities, not of bytes. attachments have to keep their own size bounded, like
+ * {@code PlateMesh} shrinking its vertex array.
+ */
+public final class EntityStateStore {
+
+    public static final int MAX_ENTRIES = 4096;
+
+    private static final IntSlotMap SLOTS = new IntSlotMap(MAX_ENTRIES);
+    private static final IntArrayList FREE_SLOTS = new IntArrayList();
+    private static final List<Object[]> ATTACHMENTS = new ArrayList<>();
+    private static final int[] ENTITY_IDS = new int[MAX_ENTRIES];
+    private static final int[] GENERATIONS = new int[MAX_ENTRIES];
+    private static final boolean[] REFERENCED = new boolean[MAX_ENTRIES];
+    private static final boolean[] USED = new boolean[MAX_ENTRIES];
+    private static int slotCount;
+    private static int clockHand;
+    private static long unloadEvictions;
+    private static long resetEvictions;
+    private static long capacityEvictions;
+
+    private EntityStateStore() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * creates a key for one kind of object attached to entities, keys are meant to be held in static fields
+     *
+     * @param factory creates the object for an entity that has none yet
+     */
+    public static <T> Key<T> createKey(Supplier<T> factory) {
+        ATTACHMENTS.add(new Object[MAX_ENTRIES]);
+        return new Key<>(ATTACHMENTS.size() - 1, factory);
+    }
+
+    /**
+     * @return the object of the key attached to the entity, created if there is none yet
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(int entityId, Key<T> key) {
+        int slot = acquire(entityId);
+        var column = ATTACHMENTS.get(key.index);
+        var value = column[slot];
+        if (value == null) {
+            value = key.factory.get();
+            column[slot] = value;
+        }
+        return (T) value;
+    }
+
+    /**
+     * @return the slot of the entity, a new one if it has none yet, which may evict another entity
+     */
+    public static int acquire(int entityId) {
+        int slot = SLOTS.get(entityId);
+        if (slot < 0) {
+            slot = allocate();
+            SLOTS.put(entityId, slot);
+            ENTITY_IDS[slot] = entityId;
+            GENERATIONS[slot]++;
+            USED[slot] = true;
+        }
+        REFERENCED[slot] = true;
+        return slot;
+    }
+
+    /**
+     * @return the slot of the entity, {@code -1} if it has none
+     */
+    public static int getSlot(int entityId) {
+        return SLOTS.get(entityId);
+    }
+
+    /**
+     * @return a number that changes whenever the slot goes to another entity
+     */
+    public static int getGeneration(int slot) {
+        return GENERATIONS[slot];
+    }
+
+    public static void remove(int entityId) {
+        int slot = SLOTS.get(entityId);
+        if (slot >= 0) {
+            free(slot);
+            FREE_SLOTS.add(slot);
+            unloadEvictions++;
+        }
+    }
+
+    public static void clear() {
+        resetEvictions += SLOTS.size();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (USED[slot]) {
+                free(slot);
+            }
+        }
+        FREE_SLOTS.clear();
+        slotCount = 0;
+        clockHand = 0;
+    }
+
+    public static int size() {
+        return SLOTS.size();
+    }
+
+    /**
+     * @return how many entities were evicted because they unloaded
+     */
+    public static long getUnloadEvictions() {
+        return unloadEvictions;
+    }
+
+    /**
+     * @return how many entities were evicted because the world changed or the client disconnected
+     */
+    public static long getResetEvictions() {
+        return resetEvictions;
+    }
+
+    /**
+     * @return how many entities were evicted because the store was full
+     */
+    public static long getCapacityEvictions() {
+        return capacityEvictions;
+    }
+
+    private static int allocate() {
+        if (!FREE_SLOTS.isEmpty()) {
+            return FREE_SLOTS.popInt();
+        }
+        if (slotCount < MAX_ENTRIES) {
+            return slotCount++;
+        }
+        // give every referenced slot a second chance, ends after one round at the latest
+        while (REFERENCED[clockHand]) {
+            REFERENCED[clockHand] = false;
+            clockHand = (clockHand + 1) % MAX_ENTRIES;
+        }
+        int slot = clockHand;
+        clockHand = (clockHand + 1) % MAX_ENTRIES;
+        free(slot);
+        capacityEvictions++;
+        return slot;
+    }
+
+    private static void free(int slot) {
+        SLOTS.remove(ENTITY_IDS[slot]);
+        USED[slot] = false;
+        REFERENCED[slot] = false;
+        for (var column : ATTACHMENTS) {
+            column[slot] = null;
+        }
+    }
+
+    public static final class Key<T> {
+
+        private final int index;
+        private final Supplier<T> factory;
+
+        private Key(int index, Supplier<T> factory) {
+            this.index = index;
+            this.factory = factory;
+        }
+    }
+}
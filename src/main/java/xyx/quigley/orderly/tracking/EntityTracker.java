@@ -0,0 +1,120 @@
+package xyx.quigley.orderly.tracking;
+
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import xyx.quigley.orderly.util.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * keeps track of all living entities in the client world, bucketed by position,
+ * so the renderer only has to look at the ones near the camera
+ */
+public final class EntityTracker {
+
+    /**
+     * 16 block cells
+     */
+    private static final int CELL_SHIFT = 4;
+    private static final SpatialGrid<LivingEntity> GRID = new SpatialGrid<>(CELL_SHIFT);
+    private static final SpatialGrid.PositionReader<LivingEntity> POSITIONS = new SpatialGrid.PositionReader<>() {
+        @Override
+        public double x(LivingEntity value) {
+            return value.getX();
+        }
+
+        @Override
+        public double y(LivingEntity value) {
+            return value.getY();
+        }
+
+        @Override
+        public double z(LivingEntity value) {
+            return value.getZ();
+        }
+    };
+
+    private static final List<IntConsumer> UNLOAD_LISTENERS = new ArrayList<>();
+    private static final List<Runnable> RESET_LISTENERS = new ArrayList<>();
+
+    private static ClientWorld world;
+
+    private EntityTracker() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static void init() {
+        ClientEntityEvents.ENTITY_LOAD.register(EntityTracker::onLoad);
+        ClientEntityEvents.ENTITY_UNLOAD.register(EntityTracker::onUnload);
+    }
+
+    /**
+     * the listener is passed the network id of every living entity that gets unloaded
+     */
+    public static void addUnloadListener(IntConsumer listener) {
+        UNLOAD_LISTENERS.add(listener);
+    }
+
+    /**
+     * the listener is called whenever the client world changes, entity ids are not stable across worlds
+     */
+    public static void addResetListener(Runnable listener) {
+        RESET_LISTENERS.add(listener);
+    }
+
+    /**
+     * called at the end of every client tick, after the world has moved its entities
+     */
+    public static void tick(MinecraftClient client) {
+        if (client.world != world) {
+            // the unload event is not guaranteed to fire for every entity when leaving a world
+            changeWorld(client.world);
+        }
+        GRID.relocateAll(POSITIONS);
+    }
+
+    /**
+     * passes all tracked entities that may be within the radius of the given position to the consumer
+     */
+    public static void forEachNear(double x, double y, double z, double radius, Consumer<? super LivingEntity> consumer) {
+        GRID.query(x, y, z, radius, consumer);
+    }
+
+    public static void forEach(Consumer<? super LivingEntity> consumer) {
+        GRID.forEach(consumer);
+    }
+
+    public static int size() {
+        return GRID.size();
+    }
+
+    private static void changeWorld(ClientWorld newWorld) {
+        GRID.clear();
+        world = newWorld;
+        RESET_LISTENERS.forEach(Runnable::run);
+    }
+
+    private static void onLoad(Entity entity, ClientWorld clientWorld) {
+        if (entity instanceof LivingEntity living) {
+            if (clientWorld != world) {
+                changeWorld(clientWorld);
+            }
+            GRID.insert(living, living.getX(), living.getY(), living.getZ());
+        }
+    }
+
+    private static void onUnload(Entity entity, ClientWorld clientWorld) {
+        if (entity instanceof LivingEntity living) {
+            GRID.remove(living);
+            for (var listener : UNLOAD_LISTENERS) {
+                listener.accept(living.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package xyx.quigley.orderly.tracking;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.hit.EntityHitResult;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.RaycastContext;
+import xyx.quigley.orderly.util.FocusMath;
+
+import javax.annotation.Nullable;
+
+/**
+ * finds the entity the camera is looking at for the show-only-focused mode.
+ * <p>
+ * within interaction reach the crosshair target vanilla already computed is reused. beyond that the
+ * extended pick is only repeated once per tick, or when the view point moved or turned noticeably.
+ */
+public final class FocusTracker {
+
+    private static boolean dirty = true;
+    private static int lastViewPointId;
+    private static double lastX;
+    private static double lastY;
+    private static double lastZ;
+    private static float lastYaw;
+    private static float lastPitch;
+    @Nullable
+    private static Entity lastFocused;
+
+    private FocusTracker() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static void tick() {
+        dirty = true;
+    }
+
+    @Nullable
+    public static Entity getFocusedEntity(Entity viewPoint) {
+        var target = MinecraftClient.getInstance().crosshairTarget;
+        if (target instanceof EntityHitResult entityHit && entityHit.getEntity() instanceof LivingEntity) {
+            return entityHit.getEntity();
+        }
+        if (dirty
+                || viewPoint.getId() != lastViewPointId
+                || FocusMath.hasViewChanged(
+                        viewPoint.squaredDistanceTo(lastX, lastY, lastZ),
+                        viewPoint.getYaw() - lastYaw,
+                        viewPoint.getPitch() - lastPitch
+                )) {
+            dirty = false;
+            lastViewPointId = viewPoint.getId();
+            lastX = viewPoint.getX();
+            lastY = viewPoint.getY();
+            lastZ = viewPoint.getZ();
+            lastYaw = viewPoint.getYaw();
+            lastPitch = viewPoint.getPitch();
+            lastFocused = getEntityLookedAt(viewPoint);
+        }
+        return lastFocused;
+    }
+
+    private static Entity getEntityLookedAt(Entity e) {
+        Entity foundEntity = null;
+        final double finalDistance = FocusMath.PICK_DISTANCE;
+        var distance = finalDistance;
+        var pos = raycast(e, finalDistance);
+        var positionVector = e.getPos();
+        if (e instanceof PlayerEntity) {
+            positionVector = positionVector.add(0, e.getEyeHeight(e.getPose()), 0);
+        }
+        if (pos != null) {
+            distance = pos.getPos().distanceTo(positionVector);
+        }
+        var lookVector = e.getRotationVector();
+        var reachVector = positionVector.add(
+                lookVector.x * finalDistance,
+                lookVector.y * finalDistance,
+                lookVector.z * finalDistance
+        );
+        Entity lookedEntity = null;
+        var entitiesInBoundingBox = e.getEntityWorld().getOtherEntities(
+                e,
+                e.getBoundingBox()
+                        .stretch(
+                                lookVector.x * finalDistance,
+                                lookVector.y * finalDistance,
+                                lookVector.z * finalDistance)
+                        .expand(1.0F));
+        var minDistance = distance;
+        for (var entity : entitiesInBoundingBox) {
+            if (entity.collides()) {
+                var collisionBox = entity.getVisibilityBoundingBox();
+                var interceptPosition = collisionBox.raycast(positionVector, reachVector);
+                if (collisionBox.contains(positionVector)) {
+                    if (0.0D < minDistance || minDistance == 0.0D) {
+                        lookedEntity = entity;
+                        minDistance = 0.0D;
+                    }
+                } else if (interceptPosition.isPresent()) {
+                    double distanceToEntity = positionVector.distanceTo(interceptPosition.get());
+                    if (distanceToEntity < minDistance || minDistance == 0.0D) {
+                        lookedEntity = entity;
+                        minDistance = distanceToEntity;
+                    }
+                }
+            }
+            if (lookedEntity != null && (minDistance < distance || pos == null)) {
+                foundEntity = lookedEntity;
+            }
+        }
+        return foundEntity;
+    }
+
+    @Nullable
+    private static HitResult raycast(Entity entity, double len) {
+        var vec = new Vec3d(entity.getX(), entity.getY(), entity.getZ());
+        if (entity instanceof PlayerEntity) {
+            vec = vec.add(new Vec3d(0, entity.getEyeHeight(entity.getPose()), 0));
+        }
+        var look = entity.getRotationVector();
+        if (look == null) {
+            return null;
+        }
+        return raycast(entity, vec, look, len);
+    }
+
+    private static HitResult raycast(Entity entity, Vec3d origin, Vec3d ray, double len) {
+        var next = origin.add(ray.normalize().multiply(len));
+        return entity.getEntityWorld().raycast(new RaycastContext(origin, next,
+                RaycastContext.ShapeType.OUTLINE, RaycastContext.FluidHandling.NONE, entity));
+    }
+}
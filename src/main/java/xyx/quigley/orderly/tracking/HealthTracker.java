@@ -0,0 +1,99 @@
+package xyx.quigley.orderly.tracking;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+
+import java.util.function.Consumer;
+
+/**
+ * remembers when the health of every tracked entity last changed, for the recently-damaged-only mode.
+ * <p>
+ * while the mode is on, the health of each tracked entity within the render distance is compared to the one of the
+ * tick before, once per tick. the values live in primitive arrays indexed by the {@link EntityStateStore} slot of
+ * the entity, a slot whose generation changed belongs to an entity seen for the first time.
+ */
+public final class HealthTracker {
+
+    /**
+     * the change tick of an entity whose health did not change since it was first seen
+     */
+    private static final int NEVER = Integer.MIN_VALUE;
+
+    private static final float[] HEALTHS = new float[EntityStateStore.MAX_ENTRIES];
+    private static final int[] CHANGED_AT = new int[EntityStateStore.MAX_ENTRIES];
+    private static final int[] GENERATIONS = new int[EntityStateStore.MAX_ENTRIES];
+    private static final Consumer<LivingEntity> UPDATE = HealthTracker::update;
+    private static Entity viewPoint;
+    private static double maxDistanceSq;
+    private static int tick;
+
+    private HealthTracker() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * needs to run after {@link EntityTracker#tick} and before {@link RenderCandidates#tick}
+     */
+    public static void tick(MinecraftClient client) {
+        tick++;
+        var config = OrderlyConfigManager.getConfig();
+        if (!config.showingOnlyDamaged() || client.cameraEntity == null) {
+            return;
+        }
+        viewPoint = client.cameraEntity;
+        maxDistanceSq = (double) config.getMaxDistance() * config.getMaxDistance();
+        EntityTracker.forEach(UPDATE);
+        viewPoint = null;
+    }
+
+    /**
+     * @return whether the health of the entity changed within the window of the config
+     */
+    public static boolean isRecentlyChanged(int entityId, OrderlyConfig config) {
+        return getTicksSinceChange(entityId) < config.getDamagedWindowTicks();
+    }
+
+    /**
+     * @return how visible the plate of the entity is, from {@code 1} until the window of the config starts to
+     * run out down to {@code 0} at its end
+     */
+    public static float getFade(int entityId, float tickDelta, OrderlyConfig config) {
+        float remaining = config.getDamagedWindowTicks() - (getTicksSinceChange(entityId) + tickDelta);
+        int fadeTicks = config.getDamagedFadeTicks();
+        if (remaining >= fadeTicks) {
+            return 1.0F;
+        }
+        return Math.max(0.0F, remaining / fadeTicks);
+    }
+
+    /**
+     * @return the ticks since the health of the entity last changed, {@link Integer#MAX_VALUE} if it never did
+     */
+    public static int getTicksSinceChange(int entityId) {
+        int slot = EntityStateStore.getSlot(entityId);
+        if (slot < 0 || GENERATIONS[slot] != EntityStateStore.getGeneration(slot) || CHANGED_AT[slot] == NEVER) {
+            return Integer.MAX_VALUE;
+        }
+        return tick - CHANGED_AT[slot];
+    }
+
+    private static void update(LivingEntity entity) {
+        if (entity.squaredDistanceTo(viewPoint) > maxDistanceSq) {
+            return;
+        }
+        float health = entity.getHealth();
+        int slot = EntityStateStore.acquire(entity.getId());
+        int generation = EntityStateStore.getGeneration(slot);
+        if (GENERATIONS[slot] != generation) {
+            GENERATIONS[slot] = generation;
+            HEALTHS[slot] = health;
+            CHANGED_AT[slot] = NEVER;
+        } else if (HEALTHS[slot] != health) {
+            HEALTHS[slot] = health;
+            CHANGED_AT[slot] = tick;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package xyx.quigley.orderly.tracking;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+
+/**
+ * caches the result of {@link LivingEntity#canSee(Entity)}, which does a full block raycast.
+ * <p>
+ * an entry stays valid until either the entity or the view point moved more than {@link #MOVE_THRESHOLD}
+ * blocks, or it is older than the configured amount of ticks. entries live in the {@link EntityStateStore}.
+ */
+public final class LineOfSightCache {
+
+    private static final double MOVE_THRESHOLD = 0.5D;
+    private static final double MOVE_THRESHOLD_SQ = MOVE_THRESHOLD * MOVE_THRESHOLD;
+
+    private static final EntityStateStore.Key<Entry> ENTRIES = EntityStateStore.createKey(Entry::new);
+    private static long ticks;
+    private static long hits;
+    private static long misses;
+
+    private LineOfSightCache() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static boolean canSee(LivingEntity entity, Entity viewPoint) {
+        int ttl = OrderlyConfigManager.getConfig().getLineOfSightCacheTicks();
+        if (ttl <= 0) {
+            return entity.canSee(viewPoint);
+        }
+        var entry = EntityStateStore.get(entity.getId(), ENTRIES);
+        if (entry.viewPointId == viewPoint.getId()
+                && ticks - entry.tick < ttl
+                && !moved(entity, entry.x, entry.y, entry.z)
+                && !moved(viewPoint, entry.viewX, entry.viewY, entry.viewZ)) {
+            hits++;
+            return entry.visible;
+        }
+        misses++;
+        entry.visible = entity.canSee(viewPoint);
+        entry.tick = ticks;
+        entry.viewPointId = viewPoint.getId();
+        entry.x = entity.getX();
+        entry.y = entity.getY();
+        entry.z = entity.getZ();
+        entry.viewX = viewPoint.getX();
+        entry.viewY = viewPoint.getY();
+        entry.viewZ = viewPoint.getZ();
+        return entry.visible;
+    }
+
+    public static void tick() {
+        ticks++;
+    }
+
+    public static long getHits() {
+        return hits;
+    }
+
+    public static long getMisses() {
+        return misses;
+    }
+
+    public static void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    private static boolean moved(Entity entity, double x, double y, double z) {
+        return entity.squaredDistanceTo(x, y, z) > MOVE_THRESHOLD_SQ;
+    }
+
+    private static final class Entry {
+        private boolean visible;
+        private long tick;
+        // no entity has this id, so a new entry never matches
+        private int viewPointId = -1;
+        private double x;
+        private double y;
+        private double z;
+        private double viewX;
+        private double viewY;
+        private double viewZ;
+    }
+}
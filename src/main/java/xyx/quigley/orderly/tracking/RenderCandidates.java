@@ -0,0 +1,99 @@
+package xyx.quigley.orderly.tracking;
+
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.Vec3d;
+import xyx.quigley.orderly.RenderStats;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.config.EntityTypeFlags;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+
+import java.util.ArrayList;
+
+/**
+ * the entities that may get a health bar in all-entities mode, rebuilt once per client tick.
+ * <p>
+ * everything that only changes when the world ticks is checked here, so the render pass
+ * only has to do the camera dependent checks (frustum, line of sight) for each frame.
+ */
+public final class RenderCandidates {
+
+    private static final ArrayList<LivingEntity> ENTITIES = new ArrayList<>();
+    private static final BooleanArrayList BOSSES = new BooleanArrayList();
+
+    private RenderCandidates() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static void tick(MinecraftClient client) {
+        ENTITIES.clear();
+        BOSSES.clear();
+        RenderStats.beginTick();
+        var config = OrderlyConfigManager.getConfig();
+        var viewPoint = client.getCameraEntity();
+        if (client.world == null || viewPoint == null || !config.canDraw() || config.showingOnlyFocused()) {
+            return;
+        }
+        // last frame's camera position, close enough for the render distance check
+        var cameraPos = client.gameRenderer.getCamera().getPos();
+        EntityTracker.forEachNear(
+                viewPoint.getX(),
+                viewPoint.getY(),
+                viewPoint.getZ(),
+                config.getMaxDistance(),
+                entity -> collect(entity, viewPoint, cameraPos, config)
+        );
+    }
+
+    public static int size() {
+        return ENTITIES.size();
+    }
+
+    public static LivingEntity get(int index) {
+        return ENTITIES.get(index);
+    }
+
+    public static boolean isBoss(int index) {
+        return BOSSES.getBoolean(index);
+    }
+
+    private static void collect(LivingEntity entity, Entity viewPoint, Vec3d cameraPos, OrderlyConfig config) {
+        RenderStats.onScanned();
+        if (entity == viewPoint
+                || !entity.isAlive()
+                || entity.hasPassengers()
+                || entity.isInvisible()
+                || entity.getMaxHealth() <= 0.0F) {
+            return;
+        }
+        if (!entity.shouldRender(cameraPos.getX(), cameraPos.getY(), cameraPos.getZ())
+                || entity.distanceTo(viewPoint) > config.getMaxDistance()) {
+            RenderStats.onCulledByDistance();
+            return;
+        }
+        if (!config.canShowOnPlayers() && entity instanceof PlayerEntity) {
+            RenderStats.onCulledByBlacklist();
+            return;
+        }
+        byte flags = EntityTypeFlags.get(entity.getType());
+        if ((flags & EntityTypeFlags.BLACKLISTED) != 0) {
+            RenderStats.onCulledByBlacklist();
+            return;
+        }
+        boolean boss = (flags & EntityTypeFlags.BOSS) != 0;
+        if (boss && !config.canShowOnBosses()) {
+            RenderStats.onCulledByBlacklist();
+            return;
+        }
+        if (config.showingOnlyDamaged() && !HealthTracker.isRecentlyChanged(entity.getId(), config)) {
+            RenderStats.onCulledAsUndamaged();
+            return;
+        }
+        RenderStats.onCandidate();
+        ENTITIES.add(entity);
+        BOSSES.add(boss);
+    }
+}
@@ -0,0 +1,70 @@
+package xyx.quigley.orderly.tracking;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.ChunkSectionPos;
+import xyx.quigley.orderly.mixin.ChunkInfoAccessor;
+
+import java.util.List;
+
+/**
+ * the chunk sections the world renderer decided to draw this frame, after its occlusion culling.
+ * <p>
+ * an entity in a section that was not drawn is hidden behind terrain, so its plate can be skipped without a raycast.
+ * the set is only built on the first query of a frame.
+ */
+public final class VisibleSections {
+
+    private static final LongOpenHashSet SECTIONS = new LongOpenHashSet();
+
+    private static List<?> chunkInfos;
+    private static boolean stale;
+
+    private VisibleSections() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * @param chunkInfos the world renderer's list of visible chunk infos, read when the set is needed
+     */
+    public static void capture(List<?> chunkInfos) {
+        VisibleSections.chunkInfos = chunkInfos;
+        stale = true;
+    }
+
+    /**
+     * @return whether the section at the feet or the head of the entity was drawn this frame
+     */
+    public static boolean isVisible(Entity entity) {
+        if (chunkInfos == null) {
+            return true;
+        }
+        if (stale) {
+            rebuild();
+        }
+        int x = ChunkSectionPos.getSectionCoord(entity.getBlockX());
+        int z = ChunkSectionPos.getSectionCoord(entity.getBlockZ());
+        int bottom = ChunkSectionPos.getSectionCoord(entity.getBlockY());
+        int top = ChunkSectionPos.getSectionCoord((int) Math.floor(entity.getY() + entity.getHeight()));
+        return SECTIONS.contains(ChunkSectionPos.asLong(x, bottom, z))
+                || top != bottom && SECTIONS.contains(ChunkSectionPos.asLong(x, top, z));
+    }
+
+    public static int size() {
+        return SECTIONS.size();
+    }
+
+    private static void rebuild() {
+        stale = false;
+        SECTIONS.clear();
+        var infos = chunkInfos;
+        for (int i = 0, size = infos.size(); i < size; i++) {
+            var origin = ((ChunkInfoAccessor) infos.get(i)).orderly$getChunk().getOrigin();
+            SECTIONS.add(ChunkSectionPos.asLong(
+                    ChunkSectionPos.getSectionCoord(origin.getX()),
+                    ChunkSectionPos.getSectionCoord(origin.getY()),
+                    ChunkSectionPos.getSectionCoord(origin.getZ())
+            ));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.util.Identifier;
+import xyx.quigley.orderly.Orderly;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * a texture holding the whole armor row of every armor value up to {@link #CAP}, composited from the armor icons on
+ * resource reload, so the armor row of a plate is a single quad.
+ * <p>
+ * row {@code armor} holds the single point strips, row {@code CAP + 1 + armor} the strips with five points grouped
+ * into one icon. the icons of a strip overlap by three quarters, later icons are drawn over the earlier ones exactly
+ * like the old per point quads were.
+ */
+public final class ArmorStripAtlas {
+
+    public static final Identifier TEXTURE = new Identifier(Orderly.MODID, "armor_strips");
+    /**
+     * the highest armor value that gets a strip of its own, higher values are drawn as a single icon and a count
+     */
+    public static final int CAP = 20;
+    static final RenderLayer LAYER = RenderLayer.getEntityTranslucent(TEXTURE, false);
+
+    private static final int ROWS = (CAP + 1) * 2;
+    /**
+     * width of an icon, and the offset between two icons of a strip, in icon row units
+     */
+    static final int ICON_WIDTH = 16;
+    static final int ICON_STEP = 4;
+
+    private static boolean available;
+    private static int iconSize;
+    private static int width;
+    private static int height;
+
+    private ArmorStripAtlas() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return the number of icons in the strip of the given armor value
+     */
+    public static int getIconCount(int armor, boolean grouped) {
+        return grouped ? armor % 5 + armor / 5 : armor;
+    }
+
+    public static float getMaxU(int armor, boolean grouped) {
+        int icons = getIconCount(armor, grouped);
+        return icons == 0 ? 0.0F : (iconSize + (icons - 1) * iconSize / 4) / (float) width;
+    }
+
+    public static float getMinV(int armor, boolean grouped) {
+        return getRow(armor, grouped) * iconSize / (float) height;
+    }
+
+    public static float getMaxV(int armor, boolean grouped) {
+        return (getRow(armor, grouped) + 1) * iconSize / (float) height;
+    }
+
+    public static void reload(ResourceManager manager) {
+        available = false;
+        int armorIcon = IconRegistry.getArmorIcon();
+        int armorGroupIcon = IconRegistry.getArmorGroupIcon();
+        if (armorIcon < 0 || armorGroupIcon < 0) {
+            return;
+        }
+        try (var single = readFirstFrame(manager, IconRegistry.getSpriteId(armorIcon));
+             var group = readFirstFrame(manager, IconRegistry.getSpriteId(armorGroupIcon))) {
+            if (single == null || group == null) {
+                return;
+            }
+            // a multiple of four, so the overlapping icons stay on whole pixels
+            int size = (Math.max(single.getWidth(), group.getWidth()) + 3) & ~3;
+            var atlas = new NativeImage(size + (CAP - 1) * size / 4, size * ROWS, true);
+            atlas.fillRect(0, 0, atlas.getWidth(), atlas.getHeight(), 0);
+            for (int armor = 1; armor <= CAP; armor++) {
+                composeStrip(atlas, armor, 0, armor, single, group, size);
+                composeStrip(atlas, CAP + 1 + armor, armor % 5, armor / 5, single, group, size);
+            }
+            iconSize = size;
+            width = atlas.getWidth();
+            height = atlas.getHeight();
+            // replaces and closes the texture of the last reload
+            MinecraftClient.getInstance().getTextureManager().registerTexture(
+                    TEXTURE,
+                    new NativeImageBackedTexture(atlas)
+            );
+            available = true;
+        } catch (IOException e) {
+            Orderly.getLogger().error("unable to build the armor strips, falling back to single icons", e);
+        }
+    }
+
+    private static int getRow(int armor, boolean grouped) {
+        return grouped ? CAP + 1 + armor : armor;
+    }
+
+    /**
+     * draws the single point icons first, from the right, then the grouped icons further left
+     */
+    private static void composeStrip(NativeImage atlas,
+                                     int row,
+                                     int singles,
+                                     int groups,
+                                     NativeImage single,
+                                     NativeImage group,
+                                     int size) {
+        int icons = singles + groups;
+        for (int i = 0; i < icons; i++) {
+            int x = (icons - 1 - i) * size / 4;
+            blendIcon(atlas, x, row * size, i < singles ? single : group, size);
+        }
+    }
+
+    private static void blendIcon(NativeImage atlas, int x, int y, NativeImage icon, int size) {
+        for (int dy = 0; dy < size; dy++) {
+            for (int dx = 0; dx < size; dx++) {
+                // nearest sampling, in case the two icons differ in size
+                int src = icon.getPixelColor(dx * icon.getWidth() / size, dy * icon.getWidth() / size);
+                int srcAlpha = src >>> 24;
+                if (srcAlpha == 0) {
+                    continue;
+                }
+                int dst = atlas.getPixelColor(x + dx, y + dy);
+                atlas.setPixelColor(x + dx, y + dy, srcAlpha == 0xFF ? src : blend(src, dst, srcAlpha));
+            }
+        }
+    }
+
+    /**
+     * source over destination, channel order does not matter as long as alpha is in the top byte
+     */
+    private static int blend(int src, int dst, int srcAlpha) {
+        int dstAlpha = dst >>> 24;
+        int outAlpha = srcAlpha + dstAlpha * (255 - srcAlpha) / 255;
+        if (outAlpha == 0) {
+            return 0;
+        }
+        int color = outAlpha << 24;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int s = (src >>> shift) & 0xFF;
+            int d = (dst >>> shift) & 0xFF;
+            int c = (s * srcAlpha + d * dstAlpha * (255 - srcAlpha) / 255) / outAlpha;
+            color |= Math.min(c, 0xFF) << shift;
+        }
+        return color;
+    }
+
+    /**
+     * @return the top square of the sprite's texture, which is the first frame of animated textures
+     */
+    @Nullable
+    private static NativeImage readFirstFrame(ResourceManager manager, Identifier spriteId) throws IOException {
+        var file = new Identifier(spriteId.getNamespace(), "textures/" + spriteId.getPath() + ".png");
+        if (!manager.containsResource(file)) {
+            Orderly.getLogger().warn("armor icon texture {} does not exist", file);
+            return null;
+        }
+        try (var resource = manager.getResource(file); var image = NativeImage.read(resource.getInputStream())) {
+            var frame = new NativeImage(image.getWidth(), image.getWidth(), true);
+            image.copyRect(frame, 0, 0, 0, 0, image.getWidth(), image.getWidth(), false, false);
+            return frame;
+        }
+    }
+}
@@ -2,30 +2,89 @@ package xyx.quigley.orderly.ui;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.render.*;
-import net.minecraft.client.render.model.BakedModel;
-import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.texture.SpriteAtlasTexture;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.mob.Monster;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.Items;
-import net.minecraft.text.MutableText;
-import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Matrix3f;
 import net.minecraft.util.math.Matrix4f;
+import net.minecraft.util.math.Quaternion;
 import net.minecraft.util.math.Vec3f;
+import net.minecraft.util.math.Vector4f;
 import net.minecraft.util.registry.Registry;
 import xyx.quigley.orderly.Orderly;
 import xyx.quigley.orderly.api.UIStyle;
 import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.config.EntityTypeFlags;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.CandidateSnapshot;
+import xyx.quigley.orderly.tracking.HealthTracker;
+import xyx.quigley.orderly.util.NumberLabelFormatter;
 import xyx.quigley.orderly.util.RenderUtil;
 
+import javax.annotation.Nullable;
+
 public class DefaultUIStyle extends SimpleUIStyle {
     private static final UIStyle INSTANCE = new DefaultUIStyle();
     private static final float SCALE_MULTIPLIER = 0.026666672F;
-    private static final Identifier TEXTURE = new Identifier(Orderly.MODID, "textures/ui/default_health_bar.png");
+    static final Identifier TEXTURE = new Identifier(Orderly.MODID, "textures/ui/default_health_bar.png");
+    private static final RenderLayer BAR_LAYER = RenderLayer.getEntityTranslucent(TEXTURE, false);
+    // FIXME this is deprecated
+    private static final RenderLayer ICON_LAYER = RenderLayer.getEntityTranslucent(
+            SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE, false
+    );
+    private static final float TEXT_SCALE = 0.5F;
+    private static final float LABEL_SCALE = 0.75F;
+    private static final float ICON_ROW_SCALE = 0.5F;
+    /**
+     * the height of a line of name text, in plate units
+     */
+    private static final float TEXT_LINE_HEIGHT = 9.0F * TEXT_SCALE;
+    private static final Matrix4f TEXT_SCALE_MATRIX = Matrix4f.scale(TEXT_SCALE, TEXT_SCALE, TEXT_SCALE);
+    private static final Matrix4f LABEL_SCALE_MATRIX = Matrix4f.scale(LABEL_SCALE, LABEL_SCALE, LABEL_SCALE);
+    private static final Matrix4f ICON_ROW_SCALE_MATRIX = Matrix4f.scale(
+            ICON_ROW_SCALE,
+            ICON_ROW_SCALE,
+            ICON_ROW_SCALE
+    );
+    private static final Matrix4f ICON_SCALE_MATRIX = Matrix4f.scale(16.0F, 16.0F, 1.0F);
+    /**
+     * what {@link MatrixStack#scale(float, float, float)} does to the normal matrix for the 16x16x1 icon scale
+     */
+    private static final float ICON_NORMAL_SCALE = MathHelper.fastInverseCbrt(1.0F / 256.0F) / 16.0F;
+    private static final Matrix4f IDENTITY_MODEL = new Matrix4f();
+    private static final Matrix3f IDENTITY_NORMAL = new Matrix3f();
+
+    static {
+        IDENTITY_MODEL.loadIdentity();
+        IDENTITY_NORMAL.loadIdentity();
+    }
+
+    private final PlateLabels labels = new PlateLabels();
+    private final NumberLabelFormatter armorCountLabels = new NumberLabelFormatter("x", "");
+
+    // scratch objects, so the steady state does not allocate anything per bar
+    private final Vec3f normal = new Vec3f();
+    private final Vec3f iconNormal = new Vec3f();
+    private final Matrix4f textMatrix = new Matrix4f();
+    private final Matrix4f labelMatrix = new Matrix4f();
+    private final Matrix4f iconRowMatrix = new Matrix4f();
+    private final Matrix4f iconMatrix = new Matrix4f();
+    private final Vector4f lodProbe = new Vector4f();
+
+    // camera rotation and scale, only rebuilt when the camera turns or the scale changes
+    private Matrix4f billboard;
+    private Matrix3f billboardNormal;
+    private float billboardX;
+    private float billboardY;
+    private float billboardZ;
+    private float billboardW;
+    private float billboardScale;
 
     public static UIStyle getInstance() {
         return INSTANCE;
@@ -41,31 +100,389 @@ public class DefaultUIStyle extends SimpleUIStyle {
                           ItemStack icon,
                           boolean boss) {
         var mc = MinecraftClient.getInstance();
-        var rotation = camera.getRotation().copy();
-        rotation.scale(-1.0F);
-        matrices.multiply(rotation);
-        var scale = SCALE_MULTIPLIER * config.getHealthBarScale();
-        matrices.scale(-scale, -scale, scale);
-        var health = MathHelper.clamp(entity.getHealth(), 0.0F, entity.getMaxHealth());
-        var percent = (health / entity.getMaxHealth()) * 100.0F;
+        updateBillboard(camera.getRotation(), SCALE_MULTIPLIER * config.getHealthBarScale());
+        var entry = matrices.peek();
+        entry.getModel().multiply(billboard);
+        entry.getNormal().multiply(billboardNormal);
+        // the state of the last tick, when the plate comes from the candidate snapshot
+        float maxHealth = CandidateSnapshot.getMaxHealth(entity);
+        var health = MathHelper.clamp(CandidateSnapshot.getHealth(entity), 0.0F, maxHealth);
+        int armor = CandidateSnapshot.getArmor(entity);
         float size = boss ? config.getPlateSizeBoss() : config.getPlateSize();
-        var textScale = 0.5F;
-        //noinspection ConstantConditions
-        var name = entity.hasCustomName() ?
-                ((MutableText) entity.getCustomName()).formatted(Formatting.ITALIC)
-                : entity.getDisplayName();
-        var namel = mc.textRenderer.getWidth(name) * textScale;
-        if (namel + 20 > size * 2) {
-            size = namel / 2.0F + 10.0F;
+        var nameLayout = NameLayoutCache.get(entity, mc.textRenderer, TEXT_SCALE);
+        size = nameLayout.getPlateSize(size);
+        // use the work of the prepare stage if it still describes the entity
+        var descriptor = PlatePreparer.get(entity.getId());
+        if (descriptor != null
+                && !descriptor.matches(OrderlyConfigManager.getRevision(), boss, health, maxHealth)) {
+            descriptor = null;
         }
-        float healthSize = size * (health / entity.getMaxHealth());
-        var entry = matrices.peek();
-        var modelViewMatrix = entry.getModel();
-        var normal = new Vec3f(0.0F, 1.0F, 0.0F);
-        normal.transform(entry.getNormal());
-        var buffer = immediate.getBuffer(
-                RenderLayer.getEntityTranslucent(TEXTURE, false)
-        ); // VertexFormats.POSITION_COLOR_TEXTURE_OVERLAY_LIGHT_NORMAL
+        int argb;
+        if (descriptor != null) {
+            argb = descriptor.getArgb();
+        } else {
+            int palette = EntityTypeFlags.getPalette(entity.getType());
+            boolean monster = entity instanceof Monster;
+            argb = RenderUtil.getColor(health, maxHealth, monster, config.colorByType(), boss, palette);
+        }
+        var detail = selectDetail(entry.getModel(), config);
+        // plates of the recently-damaged-only mode fade out at the end of their window
+        int alpha = config.showingOnlyDamaged()
+                ? (int) (HealthTracker.getFade(entity.getId(), mc.getTickDelta(), config) * 255.0F)
+                : 255;
+        boolean instanced = detail != Detail.DOT && InstancedBarRenderer.isActive(config);
+        if (instanced) {
+            int fadedArgb = (argb & 0xFFFFFF) | ((argb >>> 24) * alpha / 255) << 24;
+            InstancedBarRenderer.add(entry.getModel(), size, health / maxHealth, fadedArgb);
+        }
+        boolean debug = config.isDebugInfoEnabled() && mc.options.debugEnabled;
+        var debugId = debug ? Registry.ENTITY_TYPE.getId(entity.getType()) : null;
+        // the passed stack only tells whether there is an attribute icon, the sprite comes from the icon registry
+        int attributeIcon = icon != null && config.canShowAttributes() ? IconRegistry.getIcon(entity, boss) : -1;
+        // the plate is recorded in its own space, only the billboard transform changes from frame to frame
+        long stateHash = PlateMesh.hash(nameLayout.getRevision(), Float.floatToIntBits(size));
+        stateHash = PlateMesh.hash(stateHash, Float.floatToIntBits(health));
+        stateHash = PlateMesh.hash(stateHash, Float.floatToIntBits(maxHealth));
+        stateHash = PlateMesh.hash(stateHash, armor);
+        stateHash = PlateMesh.hash(stateHash, argb);
+        stateHash = PlateMesh.hash(stateHash, attributeIcon);
+        stateHash = PlateMesh.hash(stateHash, light);
+        stateHash = PlateMesh.hash(stateHash, OrderlyConfigManager.getRevision());
+        stateHash = PlateMesh.hash(stateHash, (instanced ? 1 : 0) | (debug ? 2 : 0) | detail.ordinal() << 2);
+        var mesh = PlateMeshCache.get(entity.getId());
+        if (!mesh.matches(stateHash)) {
+            mesh.begin(stateHash);
+            renderPlate(
+                    IDENTITY_MODEL,
+                    IDENTITY_NORMAL,
+                    mesh,
+                    mc.textRenderer,
+                    config,
+                    nameLayout,
+                    size,
+                    health,
+                    maxHealth,
+                    armor,
+                    descriptor,
+                    argb,
+                    attributeIcon,
+                    light,
+                    !instanced,
+                    debugId,
+                    detail
+            );
+            mesh.end();
+        }
+        // FIXME this is deprecated
+        mc.getTextureManager().bindTexture(SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE);
+        mesh.replay(immediate, entry.getModel(), entry.getNormal(), alpha);
+        RenderSystem.disableBlend();
+        RenderSystem.enableDepthTest();
+        RenderSystem.depthMask(true);
+        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+    }
+
+    /**
+     * draws the plate in the space of the given matrices, besides the icon registry and the armor strips it only
+     * reads its parameters, so it does not need a running client
+     *
+     * @param debugId the entity type id to print below the labels, {@code null} for none
+     */
+    void renderPlate(Matrix4f modelViewMatrix,
+                     Matrix3f normalMatrix,
+                     VertexConsumerProvider vertexConsumers,
+                     TextRenderer textRenderer,
+                     OrderlyConfig config,
+                     NameLayoutCache.NameLayout nameLayout,
+                     float size,
+                     float health,
+                     float maxHealth,
+                     int armor,
+                     @Nullable PlateDescriptor descriptor,
+                     int argb,
+                     int attributeIcon,
+                     int light,
+                     boolean bars,
+                     @Nullable Identifier debugId,
+                     Detail detail) {
+        float healthSize = size * (health / maxHealth);
+        normal.set(0.0F, 1.0F, 0.0F);
+        normal.transform(normalMatrix);
+        if (bars && detail == Detail.DOT) {
+            renderDot(modelViewMatrix, vertexConsumers, config, argb, light);
+        } else if (bars) {
+            renderBars(modelViewMatrix, vertexConsumers, config, size, healthSize, argb, light);
+        }
+        if (detail == Detail.BAR || detail == Detail.DOT) {
+            return;
+        }
+        // Foreground
+        {
+            //int light = 0xF000F0;
+            int white = 0xFFFFFF;
+            int black = 0x000000;
+            textMatrix.load(modelViewMatrix);
+            textMatrix.multiplyByTranslation(-size, -4.5F, 0.0F);
+            textMatrix.multiply(TEXT_SCALE_MATRIX);
+            textRenderer.draw(
+                    nameLayout.getOrderedText(),
+                    0,
+                    0,
+                    white,
+                    false,
+                    textMatrix,
+                    vertexConsumers,
+                    false,
+                    black,
+                    light
+            );
+            if (detail != Detail.FULL) {
+                return;
+            }
+            float s1 = LABEL_SCALE;
+            {
+                labelMatrix.load(textMatrix);
+                labelMatrix.multiply(LABEL_SCALE_MATRIX);
+                modelViewMatrix = labelMatrix;
+                int h = config.getHpTextHeight();
+                String maxHpStr = descriptor != null ? descriptor.getMaxHpLabel() : labels.maxHp(maxHealth);
+                String hpStr = descriptor != null ? descriptor.getHpLabel() : labels.hp(health);
+                String percStr = descriptor != null ?
+                        descriptor.getPercentLabel()
+                        : labels.percent(health, maxHealth);
+                if (config.showCurrentHP()) {
+                    textRenderer.draw(
+                            hpStr,
+                            2,
+                            h,
+                            white,
+                            false,
+                            modelViewMatrix,
+                            vertexConsumers,
+                            false,
+                            black,
+                            light
+                    );
+                }
+                if (config.canShowMaxHP()) {
+                    textRenderer.draw(
+                            maxHpStr,
+                            (int) (size / (TEXT_SCALE * s1) * 2)
+                                    - 2
+                                    - textRenderer.getWidth(maxHpStr),
+                            h,
+                            white,
+                            false,
+                            modelViewMatrix,
+                            vertexConsumers,
+                            false,
+                            black,
+                            light
+                    );
+                }
+                if (config.canShowPercentage()) {
+                    textRenderer.draw(
+                            percStr,
+                            (int) (size / (TEXT_SCALE * s1))
+                                    - textRenderer.getWidth(percStr)
+                                    / 2.0F,
+                            h,
+                            white,
+                            false,
+                            modelViewMatrix,
+                            vertexConsumers,
+                            false,
+                            black,
+                            light
+                    );
+                }
+                if (debugId != null) {
+                    textRenderer.draw(
+                            String.format("ID: \"%s\"", debugId),
+                            0,
+                            h + 16,
+                            white,
+                            false,
+                            modelViewMatrix,
+                            vertexConsumers,
+                            false,
+                            black,
+                            light
+                    );
+                }
+            }
+            int off = 0;
+            s1 = ICON_ROW_SCALE;
+            iconRowMatrix.load(textMatrix);
+            iconRowMatrix.multiply(ICON_ROW_SCALE_MATRIX);
+            iconRowMatrix.multiplyByTranslation(size / (TEXT_SCALE * s1) * 2 - 16, 0.0F, 0.0F);
+            iconNormal.set(
+                    normal.getX() * ICON_NORMAL_SCALE,
+                    normal.getY() * ICON_NORMAL_SCALE,
+                    normal.getZ() * ICON_NORMAL_SCALE
+            );
+            if (attributeIcon >= 0) {
+                renderIcon(off, 0, attributeIcon, vertexConsumers, OverlayTexture.DEFAULT_UV, light);
+                off -= 16;
+            }
+            if (armor > 0 && config.canShowArmor()) {
+                boolean grouped = config.canShowGroupArmor();
+                if (ArmorStripAtlas.isAvailable()) {
+                    // above the cap a single icon and the armor value are drawn instead of the whole strip
+                    int strip = armor <= ArmorStripAtlas.CAP ? armor : grouped ? 5 : 1;
+                    int icons = ArmorStripAtlas.getIconCount(strip, grouped);
+                    int stripOff = off - ArmorStripAtlas.ICON_STEP * (icons - 1);
+                    renderQuad(
+                            stripOff,
+                            0,
+                            ArmorStripAtlas.ICON_WIDTH + ArmorStripAtlas.ICON_STEP * (icons - 1),
+                            ArmorStripAtlas.LAYER,
+                            0.0F,
+                            ArmorStripAtlas.getMinV(strip, grouped),
+                            ArmorStripAtlas.getMaxU(strip, grouped),
+                            ArmorStripAtlas.getMaxV(strip, grouped),
+                            vertexConsumers,
+                            OverlayTexture.DEFAULT_UV,
+                            light
+                    );
+                    if (strip != armor) {
+                        String countStr = armorCountLabels.format(armor);
+                        textRenderer.draw(
+                                countStr,
+                                stripOff - 1 - textRenderer.getWidth(countStr),
+                                4,
+                                white,
+                                false,
+                                iconRowMatrix,
+                                vertexConsumers,
+                                false,
+                                black,
+                                light
+                        );
+                    }
+                } else {
+                    int ironArmor = armor % 5;
+                    int diamondArmor = armor / 5;
+                    if (!grouped) {
+                        ironArmor = armor;
+                        diamondArmor = 0;
+                    }
+                    for (int i = 0; i < ironArmor; i++) {
+                        renderIcon(
+                                off,
+                                0,
+                                IconRegistry.getArmorIcon(),
+                                vertexConsumers,
+                                OverlayTexture.DEFAULT_UV,
+                                light
+                        );
+                        off -= 4;
+                    }
+                    for (int i = 0; i < diamondArmor; i++) {
+                        renderIcon(
+                                off,
+                                0,
+                                IconRegistry.getArmorGroupIcon(),
+                                vertexConsumers,
+                                OverlayTexture.DEFAULT_UV,
+                                light
+                        );
+                        off -= 4;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * picks the level of detail from the on-screen height of the name text
+     */
+    private Detail selectDetail(Matrix4f modelViewMatrix, OrderlyConfig config) {
+        int fullPixels = config.getLodFullTextPixels();
+        if (fullPixels <= 0) {
+            return Detail.FULL;
+        }
+        lodProbe.set(0.0F, 0.0F, 0.0F, 1.0F);
+        lodProbe.transform(modelViewMatrix);
+        float depth = -lodProbe.getZ();
+        if (depth <= 0.0F) {
+            return Detail.FULL;
+        }
+        lodProbe.set(0.0F, TEXT_LINE_HEIGHT, 0.0F, 0.0F);
+        lodProbe.transform(modelViewMatrix);
+        float textHeight = MathHelper.sqrt(
+                lodProbe.getX() * lodProbe.getX()
+                        + lodProbe.getY() * lodProbe.getY()
+                        + lodProbe.getZ() * lodProbe.getZ()
+        );
+        // the y scale of the projection is the focal length in half screen heights
+        lodProbe.set(0.0F, 1.0F, 0.0F, 0.0F);
+        lodProbe.transform(RenderSystem.getProjectionMatrix());
+        float pixels = textHeight * lodProbe.getY() / depth
+                * MinecraftClient.getInstance().getWindow().getFramebufferHeight() / 2.0F;
+        if (pixels >= fullPixels) {
+            return Detail.FULL;
+        }
+        if (pixels >= config.getLodNameTextPixels()) {
+            return Detail.NAME;
+        }
+        return config.useLodFarDot() ? Detail.DOT : Detail.BAR;
+    }
+
+    /**
+     * a square in the bar color, centered on the bar, for the farthest level of detail
+     */
+    private void renderDot(Matrix4f modelViewMatrix,
+                           VertexConsumerProvider vertexConsumers,
+                           OrderlyConfig config,
+                           int argb,
+                           int light) {
+        var buffer = vertexConsumers.getBuffer(BAR_LAYER);
+        int barHeight = config.getBarHeight();
+        float top = barHeight / 2.0F - barHeight;
+        float bottom = barHeight / 2.0F + barHeight;
+        int r = RenderUtil.getRed(argb);
+        int g = RenderUtil.getGreen(argb);
+        int b = RenderUtil.getBlue(argb);
+        final int overlay = OverlayTexture.DEFAULT_UV;
+        buffer.vertex(modelViewMatrix, -barHeight, top, 0.0F)
+                .color(r, g, b, 255)
+                .texture(0.0F, 0.75F)
+                .overlay(overlay)
+                .light(light)
+                .normal(normal.getX(), normal.getY(), normal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, -barHeight, bottom, 0.0F)
+                .color(r, g, b, 255)
+                .texture(0.0F, 1.0F)
+                .overlay(overlay)
+                .light(light)
+                .normal(normal.getX(), normal.getY(), normal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, barHeight, bottom, 0.0F)
+                .color(r, g, b, 255)
+                .texture(1.0F, 1.0F)
+                .overlay(overlay)
+                .light(light)
+                .normal(normal.getX(), normal.getY(), normal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, barHeight, top, 0.0F)
+                .color(r, g, b, 255)
+                .texture(1.0F, 0.75F)
+                .overlay(overlay)
+                .light(light)
+                .normal(normal.getX(), normal.getY(), normal.getZ())
+                .next();
+    }
+
+    private void renderBars(Matrix4f modelViewMatrix,
+                            VertexConsumerProvider vertexConsumers,
+                            OrderlyConfig config,
+                            float size,
+                            float healthSize,
+                            int argb,
+                            int light) {
+        var buffer = vertexConsumers.getBuffer(BAR_LAYER); // VertexFormats.POSITION_COLOR_TEXTURE_OVERLAY_LIGHT_NORMAL
         int barHeight = config.getBarHeight();
         final int overlay = OverlayTexture.DEFAULT_UV;
         // Background
@@ -130,7 +547,6 @@ public class DefaultUIStyle extends SimpleUIStyle {
                 .normal(normal.getX(), normal.getY(), normal.getZ())
                 .next();
         // Health Bar
-        int argb = RenderUtil.getColor(entity, config.colorByType(), boss);
         int r = RenderUtil.getRed(argb);
         int g = RenderUtil.getGreen(argb);
         int b = RenderUtil.getBlue(argb);
@@ -161,223 +577,113 @@ public class DefaultUIStyle extends SimpleUIStyle {
                 .light(light)
                 .normal(normal.getX(), normal.getY(), normal.getZ())
                 .next();
-        // Foreground
-        matrices.push();
-        {
-            //int light = 0xF000F0;
-            int white = 0xFFFFFF;
-            int black = 0x000000;
-            //matrices.push();
-            matrices.translate(-size, -4.5F, 0.0F);
-            matrices.scale(textScale, textScale, textScale);
-            modelViewMatrix = matrices.peek().getModel();
-            mc.textRenderer.draw(
-                    name,
-                    0,
-                    0,
-                    white,
-                    false,
-                    modelViewMatrix,
-                    immediate,
-                    false,
-                    black,
-                    light
-            );
-            //matrices.pop();
-            float s1 = 0.75F;
-            matrices.push();
-            {
-                matrices.scale(s1, s1, s1);
-                modelViewMatrix = matrices.peek().getModel();
-                int h = config.getHpTextHeight();
-                String maxHpStr = String.format("%s%.2f", Formatting.BOLD, entity.getMaxHealth())
-                        .replaceAll("\\.00$", "");
-                String hpStr = String.format("%.2f", health)
-                        .replaceAll("\\.00$", "");
-                String percStr = String.format("%.2f%%", percent)
-                        .replace(".00%", "%");
-                if (maxHpStr.endsWith(".00")) {
-                    maxHpStr = maxHpStr.substring(0, maxHpStr.length() - 3);
-                }
-                if (hpStr.endsWith(".00")) {
-                    hpStr = hpStr.substring(0, hpStr.length() - 3);
-                }
-                if (config.showCurrentHP()) {
-                    mc.textRenderer.draw(
-                            hpStr,
-                            2,
-                            h,
-                            white,
-                            false,
-                            modelViewMatrix,
-                            immediate,
-                            false,
-                            black,
-                            light
-                    );
-                }
-                if (config.canShowMaxHP()) {
-                    mc.textRenderer.draw(
-                            maxHpStr,
-                            (int) (size / (textScale * s1) * 2)
-                                    - 2
-                                    - mc.textRenderer.getWidth(maxHpStr),
-                            h,
-                            white,
-                            false,
-                            modelViewMatrix,
-                            immediate,
-                            false,
-                            black,
-                            light
-                    );
-                }
-                if (config.canShowPercentage()) {
-                    mc.textRenderer.draw(
-                            percStr,
-                            (int) (size / (textScale * s1))
-                                    - mc.textRenderer.getWidth(percStr)
-                                    / 2.0F,
-                            h,
-                            white,
-                            false,
-                            modelViewMatrix,
-                            immediate,
-                            false,
-                            black,
-                            light
-                    );
-                }
-                if (config.isDebugInfoEnabled() && mc.options.debugEnabled) {
-                    mc.textRenderer.draw(
-                            String.format(
-                                    "ID: \"%s\"",
-                                    Registry.ENTITY_TYPE.getId(entity.getType())
-                            ),
-                            0,
-                            h + 16,
-                            white,
-                            false,
-                            modelViewMatrix,
-                            immediate,
-                            false,
-                            black,
-                            light
-                    );
-                }
-            }
-            matrices.pop();
-            matrices.push();
-            int off = 0;
-            s1 = 0.5F;
-            matrices.scale(s1, s1, s1);
-            matrices.translate(size / (textScale * s1) * 2 - 16, 0.0F, 0.0F);
-            // FIXME this is deprecated
-            mc.getTextureManager().bindTexture(SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE);
-            if (icon != null && config.canShowAttributes()) {
-                renderIcon(off, 0, icon, matrices, immediate, OverlayTexture.DEFAULT_UV, light);
-                off -= 16;
-            }
-            int armor = entity.getArmor();
-            if (armor > 0 && config.canShowArmor()) {
-                int ironArmor = armor % 5;
-                int diamondArmor = armor / 5;
-                if (!config.canShowGroupArmor()) {
-                    ironArmor = armor;
-                    diamondArmor = 0;
-                }
-                icon = new ItemStack(Items.IRON_CHESTPLATE);
-                for (int i = 0; i < ironArmor; i++) {
-                    renderIcon(
-                            off,
-                            0,
-                            icon,
-                            matrices,
-                            immediate,
-                            OverlayTexture.DEFAULT_UV,
-                            light
-                    );
-                    off -= 4;
-                }
-                icon = new ItemStack(Items.DIAMOND_CHESTPLATE);
-                for (int i = 0; i < diamondArmor; i++) {
-                    renderIcon(
-                            off,
-                            0,
-                            icon,
-                            matrices,
-                            immediate,
-                            OverlayTexture.DEFAULT_UV,
-                            light
-                    );
-                    off -= 4;
-                }
-            }
-            matrices.pop();
+    }
+
+    private void updateBillboard(Quaternion rotation, float scale) {
+        if (billboard != null
+                && rotation.getX() == billboardX
+                && rotation.getY() == billboardY
+                && rotation.getZ() == billboardZ
+                && rotation.getW() == billboardW
+                && scale == billboardScale) {
+            return;
         }
-        matrices.pop();
-        RenderSystem.disableBlend();
-        RenderSystem.enableDepthTest();
-        RenderSystem.depthMask(true);
-        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+        billboardX = rotation.getX();
+        billboardY = rotation.getY();
+        billboardZ = rotation.getZ();
+        billboardW = rotation.getW();
+        billboardScale = scale;
+        // let a MatrixStack do the math once, so the normal matrix matches what multiply/scale would produce per bar
+        var inverse = rotation.copy();
+        inverse.scale(-1.0F);
+        var stack = new MatrixStack();
+        stack.multiply(inverse);
+        stack.scale(-scale, -scale, scale);
+        billboard = stack.peek().getModel();
+        billboardNormal = stack.peek().getNormal();
     }
 
-    private void renderIcon(double x,
-                            double y,
-                            ItemStack stack,
-                            MatrixStack matrices,
+    private void renderIcon(float x,
+                            float y,
+                            int icon,
                             VertexConsumerProvider vertexConsumers,
                             int overlay,
                             int light) {
-        var mc = MinecraftClient.getInstance();
-        matrices.push();
-        matrices.translate(x, y, -0.002D);
-        matrices.scale(16.0F, 16.0F, 1.0F);
-        try {
-            VertexConsumer buffer = vertexConsumers.getBuffer(
-                    RenderLayer.getEntityTranslucent(
-                            // FIXME this is deprecated
-                            SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE, false
-                    )
-            );
-            BakedModel bakedModel = mc.getItemRenderer().getModels().getModel(stack);
-            Sprite textureAtlasSprite = bakedModel.getSprite();
-            MatrixStack.Entry entry = matrices.peek();
-            Matrix4f modelViewMatrix = entry.getModel();
-            Vec3f normal = new Vec3f(0.0F, 1.0F, 0.0F);
-            normal.transform(entry.getNormal());
-            buffer.vertex(modelViewMatrix, 0.0F, 0.0F, 0.0F)
-                    .color(255, 255, 255, 255)
-                    .texture(textureAtlasSprite.getMinU(), textureAtlasSprite.getMinV())
-                    .overlay(overlay)
-                    .light(light)
-                    .normal(normal.getX(), normal.getY(), normal.getZ())
-                    .next();
-            buffer.vertex(modelViewMatrix, 0.0F, 1.0F, 0.0F)
-                    .color(255, 255, 255, 255)
-                    .texture(textureAtlasSprite.getMinU(), textureAtlasSprite.getMaxV())
-                    .overlay(overlay)
-                    .light(light)
-                    .normal(normal.getX(), normal.getY(), normal.getZ())
-                    .next();
-            buffer.vertex(modelViewMatrix, 1.0F, 1.0F, 0.0F)
-                    .color(255, 255, 255, 255)
-                    .texture(textureAtlasSprite.getMaxU(), textureAtlasSprite.getMaxV())
-                    .overlay(overlay)
-                    .light(light)
-                    .normal(normal.getX(), normal.getY(), normal.getZ())
-                    .next();
-            buffer.vertex(modelViewMatrix, 1.0F, 0.0F, 0.0F)
-                    .color(255, 255, 255, 255)
-                    .texture(textureAtlasSprite.getMaxU(), textureAtlasSprite.getMinV())
-                    .overlay(overlay)
-                    .light(light)
-                    .normal(normal.getX(), normal.getY(), normal.getZ())
-                    .next();
-        } catch (Exception e) {
-            Orderly.getLogger().warn(e);
-            // TODO exception handling?
+        if (icon < 0) {
+            return;
         }
-        matrices.pop();
+        renderQuad(
+                x,
+                y,
+                16.0F,
+                ICON_LAYER,
+                IconRegistry.getMinU(icon),
+                IconRegistry.getMinV(icon),
+                IconRegistry.getMaxU(icon),
+                IconRegistry.getMaxV(icon),
+                vertexConsumers,
+                overlay,
+                light
+        );
+    }
+
+    /**
+     * draws a textured quad of the icon row, 16 units tall and the given width wide
+     */
+    private void renderQuad(float x,
+                            float y,
+                            float width,
+                            RenderLayer layer,
+                            float minU,
+                            float minV,
+                            float maxU,
+                            float maxV,
+                            VertexConsumerProvider vertexConsumers,
+                            int overlay,
+                            int light) {
+        iconMatrix.load(iconRowMatrix);
+        iconMatrix.multiplyByTranslation(x, y, -0.002F);
+        iconMatrix.multiply(ICON_SCALE_MATRIX);
+        VertexConsumer buffer = vertexConsumers.getBuffer(layer);
+        float right = width / 16.0F;
+        Matrix4f modelViewMatrix = iconMatrix;
+        buffer.vertex(modelViewMatrix, 0.0F, 0.0F, 0.0F)
+                .color(255, 255, 255, 255)
+                .texture(minU, minV)
+                .overlay(overlay)
+                .light(light)
+                .normal(iconNormal.getX(), iconNormal.getY(), iconNormal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, 0.0F, 1.0F, 0.0F)
+                .color(255, 255, 255, 255)
+                .texture(minU, maxV)
+                .overlay(overlay)
+                .light(light)
+                .normal(iconNormal.getX(), iconNormal.getY(), iconNormal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, right, 1.0F, 0.0F)
+                .color(255, 255, 255, 255)
+                .texture(maxU, maxV)
+                .overlay(overlay)
+                .light(light)
+                .normal(iconNormal.getX(), iconNormal.getY(), iconNormal.getZ())
+                .next();
+        buffer.vertex(modelViewMatrix, right, 0.0F, 0.0F)
+                .color(255, 255, 255, 255)
+                .texture(maxU, minV)
+                .overlay(overlay)
+                .light(light)
+                .normal(iconNormal.getX(), iconNormal.getY(), iconNormal.getZ())
+                .next();
+    }
+
+    /**
+     * level of detail tiers, from the closest to the farthest plates
+     */
+    enum Detail {
+        FULL,
+        NAME,
+        BAR,
+        DOT
     }
 }
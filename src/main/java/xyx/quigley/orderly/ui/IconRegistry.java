@@ -0,0 +1,331 @@
+package xyx.quigley.orderly.ui;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.client.util.ModelIdentifier;
+import net.minecraft.entity.EntityGroup;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.tag.ServerTagManagerHolder;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.JsonHelper;
+import net.minecraft.util.registry.Registry;
+import xyx.quigley.orderly.Orderly;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * maps entities to the sprites of their attribute icons.
+ * <p>
+ * the mapping is read from {@code assets/orderly/orderly/icons.json} of every resource pack on resource reload, in
+ * pack order: higher packs override single keys of lower ones, or everything if they set {@code "replace": true}.
+ * an icon is either a sprite id of the block atlas, like {@code "minecraft:item/spider_eye"},
+ * or {@code {"item": "minecraft:spider_eye"}} for the sprite of an item model.
+ * <p>
+ * the uvs of all icons are resolved on reload, so drawing an icon is a lookup into a flat array.
+ * icons are chosen by boss, entity type, entity type tag (first match in file order), entity group and finally the
+ * default icon.
+ */
+public final class IconRegistry {
+
+    public static final Identifier ICONS_FILE = new Identifier(Orderly.MODID, "orderly/icons.json");
+
+    private static final int NO_ICON = -1;
+    private static final int UNRESOLVED = -2;
+    private static final Map<String, EntityGroup> GROUPS = Map.of(
+            "default", EntityGroup.DEFAULT,
+            "undead", EntityGroup.UNDEAD,
+            "arthropod", EntityGroup.ARTHROPOD,
+            "illager", EntityGroup.ILLAGER,
+            "aquatic", EntityGroup.AQUATIC
+    );
+
+    // minU, minV, maxU, maxV per icon
+    private static float[] uvs = new float[0];
+    private static Identifier[] spriteIds = new Identifier[0];
+    private static int defaultIcon = NO_ICON;
+    private static int bossIcon = NO_ICON;
+    private static int armorIcon = NO_ICON;
+    private static int armorGroupIcon = NO_ICON;
+    private static EntityGroup[] groups = new EntityGroup[0];
+    private static int[] groupIcons = new int[0];
+    private static Identifier[] tags = new Identifier[0];
+    private static int[] tagIcons = new int[0];
+    private static Object2IntMap<EntityType<?>> explicitTypeIcons = new Object2IntLinkedOpenHashMap<>();
+    /**
+     * resolved icon per raw entity type id, tags are only known once a world is joined so this is filled lazily
+     */
+    private static int[] typeIcons = new int[0];
+
+    private IconRegistry() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * @return the icon of the entity, or {@code -1} if it has none
+     */
+    public static int getIcon(LivingEntity entity, boolean boss) {
+        if (boss && bossIcon != NO_ICON) {
+            return bossIcon;
+        }
+        int icon = getTypeIcon(entity.getType());
+        if (icon != NO_ICON) {
+            return icon;
+        }
+        var group = entity.getGroup();
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == group) {
+                return groupIcons[i];
+            }
+        }
+        return defaultIcon;
+    }
+
+    /**
+     * @return the icon of a single point of armor
+     */
+    public static int getArmorIcon() {
+        return armorIcon;
+    }
+
+    /**
+     * @return the icon of five grouped points of armor
+     */
+    public static int getArmorGroupIcon() {
+        return armorGroupIcon;
+    }
+
+    /**
+     * @return the texture id of the icon's sprite, relative to {@code textures/}
+     */
+    public static Identifier getSpriteId(int icon) {
+        return spriteIds[icon];
+    }
+
+    public static float getMinU(int icon) {
+        return uvs[icon * 4];
+    }
+
+    public static float getMinV(int icon) {
+        return uvs[icon * 4 + 1];
+    }
+
+    public static float getMaxU(int icon) {
+        return uvs[icon * 4 + 2];
+    }
+
+    public static float getMaxV(int icon) {
+        return uvs[icon * 4 + 3];
+    }
+
+    /**
+     * forgets the resolved tag icons, needs to be called when the tags may have changed, like when the server
+     * synchronizes them
+     */
+    public static void invalidateTags() {
+        Arrays.fill(typeIcons, UNRESOLVED);
+    }
+
+    /**
+     * replaces the resolved icons by the given uvs, without a resource reload or a stitched atlas
+     *
+     * @param uvs minU, minV, maxU, maxV per icon
+     */
+    static void setIcons(float[] uvs, int armorIcon, int armorGroupIcon) {
+        IconRegistry.uvs = uvs.clone();
+        IconRegistry.armorIcon = armorIcon;
+        IconRegistry.armorGroupIcon = armorGroupIcon;
+    }
+
+    /**
+     * reads all icon files and resolves their sprites, needs the block atlas to be stitched already
+     */
+    public static void reload(ResourceManager manager) {
+        var definitions = new IconDefinitions();
+        if (manager.containsResource(ICONS_FILE)) {
+            try {
+                // ordered from the lowest to the highest priority pack
+                for (Resource resource : manager.getAllResources(ICONS_FILE)) {
+                    try (resource; var reader = new InputStreamReader(
+                            resource.getInputStream(),
+                            StandardCharsets.UTF_8
+                    )) {
+                        definitions.merge(JsonHelper.deserialize(reader));
+                    } catch (IOException | JsonParseException e) {
+                        Orderly.getLogger().error("unable to read icons from {}", resource.getResourcePackName(), e);
+                    }
+                }
+            } catch (IOException e) {
+                Orderly.getLogger().error("unable to list icon files for {}", ICONS_FILE, e);
+            }
+        }
+        definitions.resolve();
+    }
+
+    private static int getTypeIcon(EntityType<?> type) {
+        int rawId = Registry.ENTITY_TYPE.getRawId(type);
+        var icons = typeIcons;
+        if (rawId >= icons.length) {
+            // entity types registered after the last reload
+            int oldLength = icons.length;
+            icons = Arrays.copyOf(icons, Math.max(rawId + 1, Registry.ENTITY_TYPE.getIds().size()));
+            Arrays.fill(icons, oldLength, icons.length, UNRESOLVED);
+            typeIcons = icons;
+        }
+        int icon = icons[rawId];
+        if (icon == UNRESOLVED) {
+            icon = resolveTypeIcon(type);
+            icons[rawId] = icon;
+        }
+        return icon;
+    }
+
+    private static int resolveTypeIcon(EntityType<?> type) {
+        int icon = explicitTypeIcons.getOrDefault(type, NO_ICON);
+        if (icon != NO_ICON || tags.length == 0) {
+            return icon;
+        }
+        var tagGroup = ServerTagManagerHolder.getTagManager().getOrCreateTagGroup(Registry.ENTITY_TYPE_KEY);
+        for (int i = 0; i < tags.length; i++) {
+            var tag = tagGroup.getTag(tags[i]);
+            if (tag != null && tag.contains(type)) {
+                return tagIcons[i];
+            }
+        }
+        return NO_ICON;
+    }
+
+    /**
+     * the merged contents of all icon files, before the sprites are resolved
+     */
+    private static final class IconDefinitions {
+
+        private final Map<String, JsonElement> specials = new HashMap<>();
+        private final Map<String, JsonElement> groups = new HashMap<>();
+        private final Map<Identifier, JsonElement> tags = new HashMap<>();
+        private final List<Identifier> tagOrder = new ArrayList<>();
+        private final Map<Identifier, JsonElement> types = new HashMap<>();
+
+        private void merge(JsonObject json) {
+            if (JsonHelper.getBoolean(json, "replace", false)) {
+                specials.clear();
+                groups.clear();
+                tags.clear();
+                tagOrder.clear();
+                types.clear();
+            }
+            for (var key : new String[]{"default", "boss", "armor", "armor_group"}) {
+                if (json.has(key)) {
+                    specials.put(key, json.get(key));
+                }
+            }
+            for (var entry : JsonHelper.getObject(json, "groups", new JsonObject()).entrySet()) {
+                if (!GROUPS.containsKey(entry.getKey())) {
+                    throw new JsonParseException("unknown entity group " + entry.getKey());
+                }
+                groups.put(entry.getKey(), entry.getValue());
+            }
+            for (var entry : JsonHelper.getObject(json, "tags", new JsonObject()).entrySet()) {
+                var id = new Identifier(entry.getKey());
+                if (tags.put(id, entry.getValue()) == null) {
+                    tagOrder.add(id);
+                }
+            }
+            for (var entry : JsonHelper.getObject(json, "types", new JsonObject()).entrySet()) {
+                types.put(new Identifier(entry.getKey()), entry.getValue());
+            }
+        }
+
+        private void resolve() {
+            var resolvedUvs = new FloatArrayList();
+            var spriteIcons = new LinkedHashMap<Sprite, Integer>();
+            defaultIcon = resolveIcon(specials.get("default"), resolvedUvs, spriteIcons);
+            bossIcon = resolveIcon(specials.get("boss"), resolvedUvs, spriteIcons);
+            armorIcon = resolveIcon(specials.get("armor"), resolvedUvs, spriteIcons);
+            armorGroupIcon = resolveIcon(specials.get("armor_group"), resolvedUvs, spriteIcons);
+
+            var resolvedGroups = new EntityGroup[groups.size()];
+            var resolvedGroupIcons = new int[groups.size()];
+            int index = 0;
+            for (var entry : groups.entrySet()) {
+                resolvedGroups[index] = GROUPS.get(entry.getKey());
+                resolvedGroupIcons[index] = resolveIcon(entry.getValue(), resolvedUvs, spriteIcons);
+                index++;
+            }
+
+            var resolvedTags = tagOrder.toArray(new Identifier[0]);
+            var resolvedTagIcons = new int[resolvedTags.length];
+            for (int i = 0; i < resolvedTags.length; i++) {
+                resolvedTagIcons[i] = resolveIcon(tags.get(resolvedTags[i]), resolvedUvs, spriteIcons);
+            }
+
+            var resolvedTypes = new Object2IntLinkedOpenHashMap<EntityType<?>>();
+            resolvedTypes.defaultReturnValue(NO_ICON);
+            for (var entry : types.entrySet()) {
+                var type = Registry.ENTITY_TYPE.getOrEmpty(entry.getKey());
+                if (type.isEmpty()) {
+                    Orderly.getLogger().debug("skipping icon for unknown entity type {}", entry.getKey());
+                    continue;
+                }
+                resolvedTypes.put(type.get(), resolveIcon(entry.getValue(), resolvedUvs, spriteIcons));
+            }
+
+            uvs = resolvedUvs.toFloatArray();
+            spriteIds = spriteIcons.keySet().stream().map(Sprite::getId).toArray(Identifier[]::new);
+            IconRegistry.groups = resolvedGroups;
+            groupIcons = resolvedGroupIcons;
+            IconRegistry.tags = resolvedTags;
+            tagIcons = resolvedTagIcons;
+            explicitTypeIcons = resolvedTypes;
+            typeIcons = new int[Registry.ENTITY_TYPE.getIds().size()];
+            invalidateTags();
+        }
+
+        private static int resolveIcon(JsonElement json, FloatArrayList uvs, Map<Sprite, Integer> spriteIcons) {
+            if (json == null || json.isJsonNull()) {
+                return NO_ICON;
+            }
+            var mc = MinecraftClient.getInstance();
+            Sprite sprite;
+            if (json.isJsonObject()) {
+                var itemId = new Identifier(JsonHelper.getString(json.getAsJsonObject(), "item"));
+                var item = Registry.ITEM.getOrEmpty(itemId);
+                if (item.isEmpty()) {
+                    Orderly.getLogger().warn("unknown icon item {}", json);
+                    return NO_ICON;
+                }
+                var model = new ModelIdentifier(Registry.ITEM.getId(item.get()), "inventory");
+                sprite = mc.getBakedModelManager().getModel(model).getSprite();
+            } else {
+                sprite = mc.getBakedModelManager()
+                        .getAtlas(SpriteAtlasTexture.BLOCK_ATLAS_TEXTURE)
+                        .getSprite(new Identifier(JsonHelper.asString(json, "icon")));
+            }
+            return spriteIcons.computeIfAbsent(sprite, s -> {
+                int icon = uvs.size() / 4;
+                uvs.add(s.getMinU());
+                uvs.add(s.getMinV());
+                uvs.add(s.getMaxU());
+                uvs.add(s.getMaxV());
+                return icon;
+            });
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package xyx.quigley.orderly.ui;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.Matrix4f;
+import net.minecraft.util.math.Vector4f;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
+import xyx.quigley.orderly.Orderly;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * draws the background, track and fill quads of every {@link DefaultUIStyle} bar with a single instanced draw call.
+ * <p>
+ * the quad geometry is uploaded once, per bar only the view space anchor, the plate size, the health fraction
+ * and the color are streamed. the billboard basis is the same for every bar of a frame and passed as a uniform.
+ * <p>
+ * if the GL context can not do instancing or the shader fails to compile, {@link #isActive(OrderlyConfig)} stays
+ * {@code false} and the bars are drawn through the regular vertex consumers.
+ */
+public final class InstancedBarRenderer {
+
+    private static final String VERTEX_SHADER = """
+            #version 150
+
+            in vec3 Corner;
+            in vec3 Anchor;
+            in vec2 Plate;
+            in vec4 Color;
+
+            uniform mat4 ModelViewMat;
+            uniform mat4 ProjMat;
+            uniform vec3 BasisX;
+            uniform vec3 BasisY;
+            // bar height, background height, background padding
+            uniform vec3 Layout;
+
+            out vec2 texCoord0;
+            out vec4 vertexColor;
+
+            void main() {
+                float size = Plate.x;
+                vec2 local;
+                if (Corner.z < 0.5) {
+                    float padding = Layout.z;
+                    local = vec2(mix(-size - padding, size + padding, Corner.x), mix(-Layout.y, Layout.x + padding, Corner.y));
+                    texCoord0 = vec2(Corner.x, mix(0.0, 0.5, Corner.y));
+                    vertexColor = vec4(1.0, 1.0, 1.0, 64.0 / 255.0 * Color.a);
+                } else if (Corner.z < 1.5) {
+                    local = vec2(mix(-size, size, Corner.x), mix(0.0, Layout.x, Corner.y));
+                    texCoord0 = vec2(Corner.x, mix(0.5, 0.75, Corner.y));
+                    vertexColor = vec4(1.0, 1.0, 1.0, 127.0 / 255.0 * Color.a);
+                } else {
+                    local = vec2(mix(-size, size * Plate.y * 2.0 - size, Corner.x), mix(0.0, Layout.x, Corner.y));
+                    texCoord0 = vec2(Corner.x, mix(0.75, 1.0, Corner.y));
+                    vertexColor = vec4(Color.rgb, 127.0 / 255.0 * Color.a);
+                }
+                vec3 position = Anchor + BasisX * local.x + BasisY * local.y;
+                gl_Position = ProjMat * ModelViewMat * vec4(position, 1.0);
+            }
+            """;
+
+    private static final String FRAGMENT_SHADER = """
+            #version 150
+
+            uniform sampler2D Sampler0;
+
+            in vec2 texCoord0;
+            in vec4 vertexColor;
+
+            out vec4 fragColor;
+
+            void main() {
+                vec4 color = texture(Sampler0, texCoord0) * vertexColor;
+                if (color.a < 0.1) {
+                    discard;
+                }
+                fragColor = color;
+            }
+            """;
+
+    private static final int CORNER_ATTRIBUTE = 0;
+    private static final int ANCHOR_ATTRIBUTE = 1;
+    private static final int PLATE_ATTRIBUTE = 2;
+    private static final int COLOR_ATTRIBUTE = 3;
+    /**
+     * anchor (3 floats), plate size and health fraction (2 floats), color (4 bytes)
+     */
+    private static final int INSTANCE_STRIDE = 3 * 4 + 2 * 4 + 4;
+    private static final int VERTICES_PER_QUAD = 6;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static boolean initialized;
+    private static boolean available;
+    private static int program;
+    private static int vertexArray;
+    private static int quadBuffer;
+    private static int instanceBuffer;
+    private static int modelViewLocation;
+    private static int projectionLocation;
+    private static int basisXLocation;
+    private static int basisYLocation;
+    private static int layoutLocation;
+    private static int samplerLocation;
+
+    private static ByteBuffer instances = MemoryUtil.memAlloc(INITIAL_CAPACITY * INSTANCE_STRIDE);
+    private static final FloatBuffer MATRIX_BUFFER = MemoryUtil.memAllocFloat(16);
+    private static final Vector4f SCRATCH = new Vector4f();
+    private static int instanceCount;
+    private static float basisXx;
+    private static float basisXy;
+    private static float basisXz;
+    private static float basisYx;
+    private static float basisYy;
+    private static float basisYz;
+
+    private InstancedBarRenderer() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * @return whether bars should be queued with {@link #add(Matrix4f, float, float, int)} this frame
+     */
+    public static boolean isActive(OrderlyConfig config) {
+        if (!config.useInstancedBars()) {
+            return false;
+        }
+        if (!initialized) {
+            initialized = true;
+            available = setup();
+        }
+        return available;
+    }
+
+    /**
+     * queues a bar
+     *
+     * @param model          the transform of the bar origin, including the billboard rotation and scale
+     * @param size           half the width of the bar
+     * @param healthFraction how much of the bar is filled
+     * @param argb           fill color, the alpha fades the whole bar
+     */
+    public static void add(Matrix4f model, float size, float healthFraction, int argb) {
+        if (instanceCount == 0) {
+            // the billboard is the same for every bar of a frame
+            SCRATCH.set(1.0F, 0.0F, 0.0F, 0.0F);
+            SCRATCH.transform(model);
+            basisXx = SCRATCH.getX();
+            basisXy = SCRATCH.getY();
+            basisXz = SCRATCH.getZ();
+            SCRATCH.set(0.0F, 1.0F, 0.0F, 0.0F);
+            SCRATCH.transform(model);
+            basisYx = SCRATCH.getX();
+            basisYy = SCRATCH.getY();
+            basisYz = SCRATCH.getZ();
+        }
+        if (instances.remaining() < INSTANCE_STRIDE) {
+            instances = MemoryUtil.memRealloc(instances, instances.capacity() * 2);
+        }
+        SCRATCH.set(0.0F, 0.0F, 0.0F, 1.0F);
+        SCRATCH.transform(model);
+        instances.putFloat(SCRATCH.getX())
+                .putFloat(SCRATCH.getY())
+                .putFloat(SCRATCH.getZ())
+                .putFloat(size)
+                .putFloat(healthFraction)
+                .put((byte) (argb >> 16))
+                .put((byte) (argb >> 8))
+                .put((byte) argb)
+                .put((byte) (argb >> 24));
+        instanceCount++;
+    }
+
+    public static int getQueuedCount() {
+        return instanceCount;
+    }
+
+    /**
+     * drops all queued bars without drawing them
+     */
+    public static void discard() {
+        instanceCount = 0;
+        instances.clear();
+    }
+
+    /**
+     * draws all bars queued this frame
+     */
+    public static void draw(OrderlyConfig config) {
+        if (instanceCount == 0) {
+            return;
+        }
+        int count = instanceCount;
+        instanceCount = 0;
+        instances.flip();
+        // the vanilla renderer caches these bindings, so they have to be restored exactly
+        int previousProgram = GL11.glGetInteger(GL20.GL_CURRENT_PROGRAM);
+        int previousVertexArray = GL11.glGetInteger(GL30.GL_VERTEX_ARRAY_BINDING);
+        int previousArrayBuffer = GL11.glGetInteger(GL15.GL_ARRAY_BUFFER_BINDING);
+
+        GL20.glUseProgram(program);
+        uploadMatrix(modelViewLocation, RenderSystem.getModelViewMatrix());
+        uploadMatrix(projectionLocation, RenderSystem.getProjectionMatrix());
+        GL20.glUniform3f(basisXLocation, basisXx, basisXy, basisXz);
+        GL20.glUniform3f(basisYLocation, basisYx, basisYy, basisYz);
+        GL20.glUniform3f(
+                layoutLocation,
+                config.getBarHeight(),
+                config.getBackgroundHeight(),
+                config.getBackgroundPadding()
+        );
+        GL20.glUniform1i(samplerLocation, 0);
+        GlStateManager._activeTexture(GL13.GL_TEXTURE0);
+        GlStateManager._bindTexture(MinecraftClient.getInstance().getTextureManager().getTexture(DefaultUIStyle.TEXTURE).getGlId());
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.enableDepthTest();
+        RenderSystem.disableCull();
+
+        GL30.glBindVertexArray(vertexArray);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, instanceBuffer);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, instances, GL15.GL_STREAM_DRAW);
+        int first = config.drawsBackground() ? 0 : VERTICES_PER_QUAD;
+        GL31.glDrawArraysInstanced(GL11.GL_TRIANGLES, first, 3 * VERTICES_PER_QUAD - first, count);
+
+        GL30.glBindVertexArray(previousVertexArray);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, previousArrayBuffer);
+        GL20.glUseProgram(previousProgram);
+        RenderSystem.enableCull();
+        RenderSystem.disableBlend();
+        instances.clear();
+    }
+
+    private static boolean setup() {
+        var capabilities = GL.getCapabilities();
+        if (!capabilities.OpenGL33) {
+            Orderly.getLogger().warn("OpenGL 3.3 is not available, instanced health bars are disabled");
+            return false;
+        }
+        int vertexShader = compile(GL20.GL_VERTEX_SHADER, VERTEX_SHADER);
+        int fragmentShader = compile(GL20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
+        if (vertexShader == 0 || fragmentShader == 0) {
+            return false;
+        }
+        program = GL20.glCreateProgram();
+        GL20.glAttachShader(program, vertexShader);
+        GL20.glAttachShader(program, fragmentShader);
+        GL20.glBindAttribLocation(program, CORNER_ATTRIBUTE, "Corner");
+        GL20.glBindAttribLocation(program, ANCHOR_ATTRIBUTE, "Anchor");
+        GL20.glBindAttribLocation(program, PLATE_ATTRIBUTE, "Plate");
+        GL20.glBindAttribLocation(program, COLOR_ATTRIBUTE, "Color");
+        GL20.glLinkProgram(program);
+        GL20.glDeleteShader(vertexShader);
+        GL20.glDeleteShader(fragmentShader);
+        if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
+            Orderly.getLogger().warn(
+                    "unable to link instanced health bar shader, falling back: {}",
+                    GL20.glGetProgramInfoLog(program)
+            );
+            GL20.glDeleteProgram(program);
+            return false;
+        }
+        modelViewLocation = GL20.glGetUniformLocation(program, "ModelViewMat");
+        projectionLocation = GL20.glGetUniformLocation(program, "ProjMat");
+        basisXLocation = GL20.glGetUniformLocation(program, "BasisX");
+        basisYLocation = GL20.glGetUniformLocation(program, "BasisY");
+        layoutLocation = GL20.glGetUniformLocation(program, "Layout");
+        samplerLocation = GL20.glGetUniformLocation(program, "Sampler0");
+
+        int previousVertexArray = GL11.glGetInteger(GL30.GL_VERTEX_ARRAY_BINDING);
+        int previousArrayBuffer = GL11.glGetInteger(GL15.GL_ARRAY_BUFFER_BINDING);
+        vertexArray = GL30.glGenVertexArrays();
+        GL30.glBindVertexArray(vertexArray);
+
+        // background, track and fill, two triangles each, corner x/y and the quad index
+        quadBuffer = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, quadBuffer);
+        var quads = MemoryUtil.memAllocFloat(3 * VERTICES_PER_QUAD * 3);
+        for (int quad = 0; quad < 3; quad++) {
+            quads.put(0.0F).put(0.0F).put(quad)
+                    .put(0.0F).put(1.0F).put(quad)
+                    .put(1.0F).put(1.0F).put(quad)
+                    .put(0.0F).put(0.0F).put(quad)
+                    .put(1.0F).put(1.0F).put(quad)
+                    .put(1.0F).put(0.0F).put(quad);
+        }
+        quads.flip();
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, quads, GL15.GL_STATIC_DRAW);
+        MemoryUtil.memFree(quads);
+        GL20.glEnableVertexAttribArray(CORNER_ATTRIBUTE);
+        GL20.glVertexAttribPointer(CORNER_ATTRIBUTE, 3, GL11.GL_FLOAT, false, 3 * 4, 0L);
+
+        instanceBuffer = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, instanceBuffer);
+        GL20.glEnableVertexAttribArray(ANCHOR_ATTRIBUTE);
+        GL20.glVertexAttribPointer(ANCHOR_ATTRIBUTE, 3, GL11.GL_FLOAT, false, INSTANCE_STRIDE, 0L);
+        GL33.glVertexAttribDivisor(ANCHOR_ATTRIBUTE, 1);
+        GL20.glEnableVertexAttribArray(PLATE_ATTRIBUTE);
+        GL20.glVertexAttribPointer(PLATE_ATTRIBUTE, 2, GL11.GL_FLOAT, false, INSTANCE_STRIDE, 3 * 4L);
+        GL33.glVertexAttribDivisor(PLATE_ATTRIBUTE, 1);
+        GL20.glEnableVertexAttribArray(COLOR_ATTRIBUTE);
+        GL20.glVertexAttribPointer(COLOR_ATTRIBUTE, 4, GL11.GL_UNSIGNED_BYTE, true, INSTANCE_STRIDE, 5 * 4L);
+        GL33.glVertexAttribDivisor(COLOR_ATTRIBUTE, 1);
+
+        GL30.glBindVertexArray(previousVertexArray);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, previousArrayBuffer);
+        Orderly.getLogger().debug("instanced health bars enabled");
+        return true;
+    }
+
+    private static int compile(int type, String source) {
+        int shader = GL20.glCreateShader(type);
+        GL20.glShaderSource(shader, source);
+        GL20.glCompileShader(shader);
+        if (GL20.glGetShaderi(shader, GL20.GL_COMPILE_STATUS) == GL11.GL_FALSE) {
+            Orderly.getLogger().warn(
+                    "unable to compile instanced health bar shader, falling back: {}",
+                    GL20.glGetShaderInfoLog(shader)
+            );
+            GL20.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+
+    private static void uploadMatrix(int location, Matrix4f matrix) {
+        // column by column, by transforming the unit vectors
+        MATRIX_BUFFER.clear();
+        for (int column = 0; column < 4; column++) {
+            SCRATCH.set(
+                    column == 0 ? 1.0F : 0.0F,
+                    column == 1 ? 1.0F : 0.0F,
+                    column == 2 ? 1.0F : 0.0F,
+                    column == 3 ? 1.0F : 0.0F
+            );
+            SCRATCH.transform(matrix);
+            MATRIX_BUFFER.put(SCRATCH.getX()).put(SCRATCH.getY()).put(SCRATCH.getZ()).put(SCRATCH.getW());
+        }
+        MATRIX_BUFFER.flip();
+        GL20.glUniformMatrix4fv(location, false, MATRIX_BUFFER);
+    }
+}
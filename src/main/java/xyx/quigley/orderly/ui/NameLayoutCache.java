@@ -0,0 +1,177 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.scoreboard.AbstractTeam;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.OrderedText;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import xyx.quigley.orderly.tracking.EntityStateStore;
+
+import javax.annotation.Nullable;
+
+/**
+ * caches the styled name of an entity together with its measured width and the resulting plate size.
+ * <p>
+ * an entry is rebuilt when the custom name, the scoreboard team decoration, the game language or the font changes.
+ * entries live in the {@link EntityStateStore}.
+ */
+public final class NameLayoutCache {
+
+    private static final EntityStateStore.Key<NameLayout> LAYOUTS = EntityStateStore.createKey(NameLayout::new);
+    // every build of a layout gets its own revision, so a rebuilt layout never looks like an older one
+    private static int revisions;
+    // bumped to rebuild every layout at once when the fonts reload, without walking the store
+    private static int epoch;
+
+    private NameLayoutCache() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static NameLayout get(LivingEntity entity, TextRenderer textRenderer, float textScale) {
+        var client = MinecraftClient.getInstance();
+        var language = client.getLanguageManager().getLanguage().getCode();
+        // the unicode font is switched without a resource reload
+        boolean unicode = client.options.forceUnicodeFont;
+        var customName = entity.getCustomName();
+        var team = entity.getScoreboardTeam();
+        var layout = EntityStateStore.get(entity.getId(), LAYOUTS);
+        if (layout.matches(customName, team, language, textScale, unicode)) {
+            return layout;
+        }
+        layout.update(entity, textRenderer, customName, team, language, textScale, unicode);
+        return layout;
+    }
+
+    /**
+     * rebuilds all layouts the next time they are used, for when the font metrics they were measured with change
+     */
+    public static void clear() {
+        epoch++;
+    }
+
+    /**
+     * @return a layout of a fixed text, that is not cached and never rebuilt
+     */
+    static NameLayout of(Text text, TextRenderer textRenderer, float textScale) {
+        var layout = new NameLayout();
+        layout.text = text;
+        layout.orderedText = text.asOrderedText();
+        layout.width = textRenderer.getWidth(layout.orderedText) * textScale;
+        layout.textScale = textScale;
+        layout.revision = ++revisions;
+        return layout;
+    }
+
+    public static final class NameLayout {
+
+        private Text text;
+        private OrderedText orderedText;
+        private float width;
+        private float baseSize = Float.NaN;
+        private float plateSize;
+        private int revision;
+
+        @Nullable
+        private Text customName;
+        @Nullable
+        private AbstractTeam team;
+        @Nullable
+        private Text teamPrefix;
+        @Nullable
+        private Text teamSuffix;
+        @Nullable
+        private Formatting teamColor;
+        private String language;
+        private float textScale;
+        private boolean unicode;
+        private int epoch;
+
+        private NameLayout() {
+        }
+
+        /**
+         * @return a number that changes whenever the layout is rebuilt
+         */
+        public int getRevision() {
+            return revision;
+        }
+
+        public Text getText() {
+            return text;
+        }
+
+        public OrderedText getOrderedText() {
+            return orderedText;
+        }
+
+        /**
+         * the scaled width of the name
+         */
+        public float getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the half width of the plate, widened if the name does not fit into the given base size
+         */
+        public float getPlateSize(float baseSize) {
+            if (baseSize != this.baseSize) {
+                this.baseSize = baseSize;
+                plateSize = width + 20 > baseSize * 2 ? width / 2.0F + 10.0F : baseSize;
+            }
+            return plateSize;
+        }
+
+        private boolean matches(@Nullable Text customName,
+                                @Nullable AbstractTeam team,
+                                String language,
+                                float textScale,
+                                boolean unicode) {
+            return epoch == NameLayoutCache.epoch
+                    && customName == this.customName
+                    && team == this.team
+                    && (!(team instanceof Team scoreboardTeam)
+                    || scoreboardTeam.getPrefix() == teamPrefix
+                    && scoreboardTeam.getSuffix() == teamSuffix
+                    && scoreboardTeam.getColor() == teamColor)
+                    && language.equals(this.language)
+                    && textScale == this.textScale
+                    && unicode == this.unicode;
+        }
+
+        private void update(LivingEntity entity,
+                            TextRenderer textRenderer,
+                            @Nullable Text customName,
+                            @Nullable AbstractTeam team,
+                            String language,
+                            float textScale,
+                            boolean unicode) {
+            epoch = NameLayoutCache.epoch;
+            this.unicode = unicode;
+            this.customName = customName;
+            this.team = team;
+            if (team instanceof Team scoreboardTeam) {
+                teamPrefix = scoreboardTeam.getPrefix();
+                teamSuffix = scoreboardTeam.getSuffix();
+                teamColor = scoreboardTeam.getColor();
+            } else {
+                teamPrefix = null;
+                teamSuffix = null;
+                teamColor = null;
+            }
+            this.language = language;
+            this.textScale = textScale;
+            // copy the custom name, formatting it directly would change the entity's own text
+            text = customName != null ?
+                    customName.shallowCopy().formatted(Formatting.ITALIC)
+                    : entity.getDisplayName();
+            orderedText = text.asOrderedText();
+            width = textRenderer.getWidth(orderedText) * textScale;
+            baseSize = Float.NaN;
+            revision = ++revisions;
+        }
+    }
+}
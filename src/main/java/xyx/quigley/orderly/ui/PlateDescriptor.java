@@ -0,0 +1,62 @@
+package xyx.quigley.orderly.ui;
+
+/**
+ * everything about a plate that can be worked out away from the render thread, computed again when it changed.
+ * <p>
+ * instances are immutable, so they can be handed from the preparing threads to the render thread as they are.
+ */
+public final class PlateDescriptor {
+
+    private final int configRevision;
+    private final boolean boss;
+    private final float health;
+    private final float maxHealth;
+    private final int argb;
+    private final String hpLabel;
+    private final String maxHpLabel;
+    private final String percentLabel;
+
+    PlateDescriptor(int configRevision,
+                    boolean boss,
+                    float health,
+                    float maxHealth,
+                    int argb,
+                    String hpLabel,
+                    String maxHpLabel,
+                    String percentLabel) {
+        this.configRevision = configRevision;
+        this.boss = boss;
+        this.health = health;
+        this.maxHealth = maxHealth;
+        this.argb = argb;
+        this.hpLabel = hpLabel;
+        this.maxHpLabel = maxHpLabel;
+        this.percentLabel = percentLabel;
+    }
+
+    /**
+     * @return whether the descriptor still describes the plate, health may have changed since it was prepared
+     */
+    boolean matches(int configRevision, boolean boss, float health, float maxHealth) {
+        return this.configRevision == configRevision
+                && this.boss == boss
+                && this.health == health
+                && this.maxHealth == maxHealth;
+    }
+
+    public int getArgb() {
+        return argb;
+    }
+
+    public String getHpLabel() {
+        return hpLabel;
+    }
+
+    public String getMaxHpLabel() {
+        return maxHpLabel;
+    }
+
+    public String getPercentLabel() {
+        return percentLabel;
+    }
+}
@@ -0,0 +1,26 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.util.Formatting;
+import xyx.quigley.orderly.util.NumberLabelFormatter;
+
+/**
+ * the number labels of a plate, one instance per thread since the formatters are not thread safe
+ */
+final class PlateLabels {
+
+    private final NumberLabelFormatter hpLabels = new NumberLabelFormatter("", "");
+    private final NumberLabelFormatter maxHpLabels = new NumberLabelFormatter(Formatting.BOLD.toString(), "");
+    private final NumberLabelFormatter percentLabels = new NumberLabelFormatter("", "%");
+
+    String hp(float health) {
+        return hpLabels.format(health);
+    }
+
+    String maxHp(float maxHealth) {
+        return maxHpLabels.format(maxHealth);
+    }
+
+    String percent(float health, float maxHealth) {
+        return percentLabels.format((health / maxHealth) * 100.0F);
+    }
+}
@@ -0,0 +1,229 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.util.math.Matrix3f;
+import net.minecraft.util.math.Matrix4f;
+import net.minecraft.util.math.Vec3f;
+import net.minecraft.util.math.Vector4f;
+
+import java.util.Arrays;
+
+/**
+ * the pre-tessellated vertices of a single plate, in plate local space.
+ * <p>
+ * a plate is recorded by passing the mesh as the {@link VertexConsumerProvider} while drawing it with identity
+ * transforms, afterwards {@link #replay(VertexConsumerProvider, Matrix4f, Matrix3f, int)} writes the recorded vertices
+ * under the current transform into the real buffers. the vertex array grows with the plate and shrinks again
+ * when a recording needs less than a quarter of it.
+ */
+final class PlateMesh implements VertexConsumerProvider, VertexConsumer {
+
+    // x, y, z, u, v, normal x, normal y, normal z as float bits, then color, overlay and light
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int Z = 2;
+    private static final int U = 3;
+    private static final int V = 4;
+    private static final int NORMAL_X = 5;
+    private static final int NORMAL_Y = 6;
+    private static final int NORMAL_Z = 7;
+    private static final int COLOR = 8;
+    private static final int OVERLAY = 9;
+    private static final int LIGHT = 10;
+    private static final int STRIDE = 11;
+    private static final int INITIAL_CAPACITY = 64 * STRIDE;
+
+    private static final Vector4f POSITION = new Vector4f();
+    private static final Vec3f NORMAL = new Vec3f();
+
+    private long stateHash;
+    private boolean recorded;
+    private int epoch;
+
+    private int[] data = new int[INITIAL_CAPACITY];
+    private int vertexCount;
+    private RenderLayer[] segmentLayers = new RenderLayer[4];
+    private int[] segmentEnds = new int[4];
+    private int segmentCount;
+
+    /**
+     * mixes one more input into a state hash
+     */
+    static long hash(long hash, int value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * @return whether the mesh was recorded for exactly this state
+     */
+    boolean matches(long stateHash) {
+        return recorded && this.stateHash == stateHash;
+    }
+
+    int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * forgets the recording, so the plate is recorded again the next time it is drawn
+     */
+    void invalidate(int epoch) {
+        this.epoch = epoch;
+        recorded = false;
+    }
+
+    void begin(long stateHash) {
+        this.stateHash = stateHash;
+        recorded = false;
+        vertexCount = 0;
+        segmentCount = 0;
+    }
+
+    void end() {
+        recorded = true;
+        // give back the array of a plate that got much smaller, so a mesh holds at most twice what it records
+        int used = vertexCount * STRIDE;
+        if (data.length > INITIAL_CAPACITY && used * 4 < data.length) {
+            data = Arrays.copyOf(data, Math.max(INITIAL_CAPACITY, used * 2));
+        }
+    }
+
+    /**
+     * @param alpha scales the alpha of every vertex, {@code 255} keeps the recorded colors
+     */
+    void replay(VertexConsumerProvider vertexConsumers, Matrix4f model, Matrix3f normalMatrix, int alpha) {
+        int start = 0;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            int end = segmentEnds[segment];
+            if (end == start) {
+                continue;
+            }
+            var buffer = vertexConsumers.getBuffer(segmentLayers[segment]);
+            for (int vertex = start; vertex < end; vertex++) {
+                int base = vertex * STRIDE;
+                POSITION.set(
+                        Float.intBitsToFloat(data[base + X]),
+                        Float.intBitsToFloat(data[base + Y]),
+                        Float.intBitsToFloat(data[base + Z]),
+                        1.0F
+                );
+                POSITION.transform(model);
+                NORMAL.set(
+                        Float.intBitsToFloat(data[base + NORMAL_X]),
+                        Float.intBitsToFloat(data[base + NORMAL_Y]),
+                        Float.intBitsToFloat(data[base + NORMAL_Z])
+                );
+                NORMAL.transform(normalMatrix);
+                int color = data[base + COLOR];
+                int colorAlpha = alpha == 255 ? color >>> 24 : (color >>> 24) * alpha / 255;
+                int overlay = data[base + OVERLAY];
+                int light = data[base + LIGHT];
+                // buffers skip the elements their vertex format does not have
+                buffer.vertex(POSITION.getX(), POSITION.getY(), POSITION.getZ())
+                        .color((color >>> 16) & 0xFF, (color >>> 8) & 0xFF, color & 0xFF, colorAlpha)
+                        .texture(
+                                Float.intBitsToFloat(data[base + U]),
+                                Float.intBitsToFloat(data[base + V])
+                        )
+                        .overlay(overlay & 0xFFFF, overlay >>> 16)
+                        .light(light & 0xFFFF, light >>> 16)
+                        .normal(NORMAL.getX(), NORMAL.getY(), NORMAL.getZ())
+                        .next();
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    public VertexConsumer getBuffer(RenderLayer layer) {
+        if (segmentCount == 0 || segmentLayers[segmentCount - 1] != layer) {
+            if (segmentCount == segmentLayers.length) {
+                segmentLayers = Arrays.copyOf(segmentLayers, segmentCount * 2);
+                segmentEnds = Arrays.copyOf(segmentEnds, segmentCount * 2);
+            }
+            segmentLayers[segmentCount] = layer;
+            segmentEnds[segmentCount] = vertexCount;
+            segmentCount++;
+        }
+        return this;
+    }
+
+    @Override
+    public VertexConsumer vertex(double x, double y, double z) {
+        int base = vertexCount * STRIDE;
+        if (base + STRIDE > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        Arrays.fill(data, base, base + STRIDE, 0);
+        data[base + X] = Float.floatToRawIntBits((float) x);
+        data[base + Y] = Float.floatToRawIntBits((float) y);
+        data[base + Z] = Float.floatToRawIntBits((float) z);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer vertex(Matrix4f matrix, float x, float y, float z) {
+        // the default transforms into a new vector every vertex
+        POSITION.set(x, y, z, 1.0F);
+        POSITION.transform(matrix);
+        return vertex(POSITION.getX(), POSITION.getY(), POSITION.getZ());
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha) {
+        data[vertexCount * STRIDE + COLOR] = (alpha & 0xFF) << 24
+                | (red & 0xFF) << 16
+                | (green & 0xFF) << 8
+                | (blue & 0xFF);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer texture(float u, float v) {
+        int base = vertexCount * STRIDE;
+        data[base + U] = Float.floatToRawIntBits(u);
+        data[base + V] = Float.floatToRawIntBits(v);
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlay(int u, int v) {
+        data[vertexCount * STRIDE + OVERLAY] = (u & 0xFFFF) | (v & 0xFFFF) << 16;
+        return this;
+    }
+
+    @Override
+    public VertexConsumer light(int u, int v) {
+        data[vertexCount * STRIDE + LIGHT] = (u & 0xFFFF) | (v & 0xFFFF) << 16;
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z) {
+        int base = vertexCount * STRIDE;
+        data[base + NORMAL_X] = Float.floatToRawIntBits(x);
+        data[base + NORMAL_Y] = Float.floatToRawIntBits(y);
+        data[base + NORMAL_Z] = Float.floatToRawIntBits(z);
+        return this;
+    }
+
+    @Override
+    public void next() {
+        vertexCount++;
+        if (segmentCount > 0) {
+            segmentEnds[segmentCount - 1] = vertexCount;
+        }
+    }
+
+    @Override
+    public void fixedColor(int red, int green, int blue, int alpha) {
+        // not used by plates
+    }
+
+    @Override
+    public void unfixColor() {
+    }
+}
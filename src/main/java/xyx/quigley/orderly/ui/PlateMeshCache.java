@@ -0,0 +1,35 @@
+package xyx.quigley.orderly.ui;
+
+import xyx.quigley.orderly.tracking.EntityStateStore;
+
+/**
+ * keeps the recorded plate of every entity, so a plate is only tessellated again when its content changes.
+ * <p>
+ * meshes live in the {@link EntityStateStore}, so they are dropped when their entity unloads.
+ */
+public final class PlateMeshCache {
+
+    private static final EntityStateStore.Key<PlateMesh> MESHES = EntityStateStore.createKey(PlateMesh::new);
+
+    // bumped to invalidate every recorded mesh at once, without walking the store
+    private static int epoch;
+
+    private PlateMeshCache() {
+        throw new IllegalStateException("util class");
+    }
+
+    static PlateMesh get(int entityId) {
+        var mesh = EntityStateStore.get(entityId, MESHES);
+        if (mesh.getEpoch() != epoch) {
+            mesh.invalidate(epoch);
+        }
+        return mesh;
+    }
+
+    /**
+     * drops all recorded meshes, for when the glyph or sprite uvs they reference change
+     */
+    public static void clear() {
+        epoch++;
+    }
+}
@@ -0,0 +1,177 @@
+package xyx.quigley.orderly.ui;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.util.math.MathHelper;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.CandidateSnapshot;
+import xyx.quigley.orderly.util.RenderUtil;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the prepare stage of the plate pipeline: at the end of every client tick the {@link PlateDescriptor}s are computed
+ * from the latest {@link CandidateSnapshot} on the fork join pool.
+ * <p>
+ * the render thread only looks the finished descriptors up and writes vertices. text measuring stays on the render
+ * thread, the font storage is not thread safe. while a job is still running, ticks keep the descriptors of the last
+ * finished one.
+ * <p>
+ * with few candidates nothing is prepared, the styles work the plates out themselves when their mesh is recorded
+ * again. otherwise only the descriptors of entities whose health, boss state or config changed are computed again,
+ * into the one of two maps that is not published.
+ */
+public final class PlatePreparer {
+
+    /**
+     * fewer candidates than this are not prepared, forking would cost more than it saves
+     */
+    private static final int PARALLEL_THRESHOLD = 64;
+    private static final int SPLIT_SIZE = 32;
+    private static final ThreadLocal<PlateLabels> LABELS = ThreadLocal.withInitial(PlateLabels::new);
+    // the job fills the one that is not published
+    private static final Int2ObjectOpenHashMap<PlateDescriptor> FRONT = new Int2ObjectOpenHashMap<>();
+    private static final Int2ObjectOpenHashMap<PlateDescriptor> BACK = new Int2ObjectOpenHashMap<>();
+
+    // written on the client thread only while no job is running
+    private static CandidateSnapshot snapshot;
+    private static int configRevision;
+    private static boolean colorByType;
+    private static int jobGeneration;
+    // the descriptors of the last job, to reuse the ones that still match
+    private static Int2ObjectMap<PlateDescriptor> previous = Int2ObjectMaps.emptyMap();
+    private static PlateDescriptor[] prepared = new PlateDescriptor[PARALLEL_THRESHOLD];
+
+    /**
+     * bumped by {@link #clear()}, a job started before only publishes if it did not change, guarded by the class
+     */
+    private static int generation;
+
+    @Nullable
+    private static ForkJoinTask<?> job;
+    private static volatile Int2ObjectMap<PlateDescriptor> descriptors = Int2ObjectMaps.emptyMap();
+
+    private PlatePreparer() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * needs to run after {@link CandidateSnapshot#tick()}
+     */
+    public static void tick() {
+        if (job != null && !job.isDone()) {
+            return;
+        }
+        job = null;
+        var latest = CandidateSnapshot.get();
+        if (latest.size() < PARALLEL_THRESHOLD) {
+            descriptors = Int2ObjectMaps.emptyMap();
+            return;
+        }
+        // pinned, the job may still read it when the next ticks publish new snapshots
+        snapshot = latest.pin();
+        var config = OrderlyConfigManager.getConfig();
+        configRevision = OrderlyConfigManager.getRevision();
+        colorByType = config.colorByType();
+        jobGeneration = generation;
+        // empty after a clear, so descriptors of the old entities are not reused for new ones with the same id
+        previous = descriptors;
+        if (prepared.length < snapshot.size()) {
+            prepared = new PlateDescriptor[Math.max(snapshot.size(), prepared.length * 2)];
+        }
+        job = ForkJoinPool.commonPool().submit(PlatePreparer::prepare);
+    }
+
+    /**
+     * @return the descriptor prepared for the entity at the last finished tick, if any
+     */
+    @Nullable
+    public static PlateDescriptor get(int entityId) {
+        return descriptors.get(entityId);
+    }
+
+    /**
+     * drops all descriptors, a job that is still running for the old entities will not publish its own
+     */
+    public static void clear() {
+        synchronized (PlatePreparer.class) {
+            generation++;
+            descriptors = Int2ObjectMaps.emptyMap();
+        }
+    }
+
+    private static void prepare() {
+        int count = snapshot.size();
+        try {
+            new PrepareAction(0, count).invoke();
+            // neither the render thread nor a reuse lookup reads the map that is not published
+            var map = previous == FRONT ? BACK : FRONT;
+            map.clear();
+            for (int i = 0; i < count; i++) {
+                map.put(snapshot.getId(i), prepared[i]);
+            }
+            synchronized (PlatePreparer.class) {
+                if (jobGeneration == generation) {
+                    descriptors = map;
+                }
+            }
+        } finally {
+            snapshot.release();
+        }
+    }
+
+    private static PlateDescriptor describe(int index, PlateLabels labels) {
+        float maxHealth = snapshot.getMaxHealth(index);
+        float health = MathHelper.clamp(snapshot.getHealth(index), 0.0F, maxHealth);
+        boolean boss = snapshot.isBoss(index);
+        var last = previous.get(snapshot.getId(index));
+        if (last != null && last.matches(configRevision, boss, health, maxHealth)) {
+            return last;
+        }
+        return new PlateDescriptor(
+                configRevision,
+                boss,
+                health,
+                maxHealth,
+                RenderUtil.getColor(
+                        health,
+                        maxHealth,
+                        snapshot.isMonster(index),
+                        colorByType,
+                        boss,
+                        snapshot.getPalette(index)
+                ),
+                labels.hp(health),
+                labels.maxHp(maxHealth),
+                labels.percent(health, maxHealth)
+        );
+    }
+
+    private static final class PrepareAction extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        private PrepareAction(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PrepareAction(from, middle), new PrepareAction(middle, to));
+                return;
+            }
+            var labels = LABELS.get();
+            for (int i = from; i < to; i++) {
+                prepared[i] = describe(i, labels);
+            }
+        }
+    }
+}
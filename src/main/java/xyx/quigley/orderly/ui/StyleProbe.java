@@ -0,0 +1,138 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.Camera;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.math.Vec3f;
+import xyx.quigley.orderly.Orderly;
+import xyx.quigley.orderly.api.UIManager;
+import xyx.quigley.orderly.api.UIStyle;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+import xyx.quigley.orderly.config.EntityTypeFlags;
+import xyx.quigley.orderly.config.OrderlyConfigManager;
+import xyx.quigley.orderly.tracking.CandidateSnapshot;
+import xyx.quigley.orderly.tracking.FocusTracker;
+import xyx.quigley.orderly.util.RecordingVertexConsumers;
+import xyx.quigley.orderly.util.RenderUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * renders the plate of the focused entity with every registered style into a {@link RecordingVertexConsumers}
+ * and reports the vertices, layer switches, text glyphs and allocated bytes per plate, to the log and the chat.
+ * <p>
+ * every plate is rendered once to warm up the caches first, so the numbers are the ones of a steady frame. this is
+ * an in-game debug tool for real entities and the live config, the baselines of the styles are asserted by the
+ * tests.
+ */
+public final class StyleProbe {
+
+    private static final int ITERATIONS = 32;
+    private static final int LIGHT = 0xF000F0;
+
+    private StyleProbe() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static void probeFocused(MinecraftClient client) {
+        var viewPoint = client.getCameraEntity();
+        var target = client.targetedEntity;
+        if (!(target instanceof LivingEntity) && viewPoint != null) {
+            target = FocusTracker.getFocusedEntity(viewPoint);
+        }
+        if (!(target instanceof LivingEntity entity)) {
+            client.inGameHud.getChatHud().addMessage(new LiteralText("no entity in focus to probe")
+                    .formatted(Formatting.GRAY));
+            return;
+        }
+        for (var line : probe(entity, EntityTypeFlags.isBoss(entity.getType()))) {
+            Orderly.getLogger().info(line);
+            client.inGameHud.getChatHud().addMessage(new LiteralText(line).formatted(Formatting.GRAY));
+        }
+    }
+
+    /**
+     * @return one line per registered style
+     */
+    public static List<String> probe(LivingEntity entity, boolean boss) {
+        var client = MinecraftClient.getInstance();
+        var camera = client.gameRenderer.getCamera();
+        var config = OrderlyConfigManager.getConfig();
+        var icon = RenderUtil.getIcon(entity, boss);
+        var recording = new RecordingVertexConsumers();
+        // the camera transform of the world pass and the plate position, so the level of detail matches the frame
+        var matrices = new MatrixStack();
+        matrices.multiply(Vec3f.POSITIVE_X.getDegreesQuaternion(camera.getPitch()));
+        matrices.multiply(Vec3f.POSITIVE_Y.getDegreesQuaternion(camera.getYaw() + 180.0F));
+        matrices.translate(
+                entity.getX() - camera.getPos().x,
+                entity.getY() - camera.getPos().y + entity.getHeight() + config.getHeightAbove(),
+                entity.getZ() - camera.getPos().z
+        );
+        var lines = new ArrayList<String>();
+        // the live state of the entity, not the one of the last snapshot entry
+        CandidateSnapshot.setRendering(null, -1);
+        InstancedBarRenderer.discard();
+        for (var id : UIManager.getRegisteredStyles()) {
+            var style = UIManager.getStyle(id);
+            if (style == null) {
+                continue;
+            }
+            render(style, matrices, recording, config, entity, boss, icon, camera);
+            recording.reset();
+            InstancedBarRenderer.discard();
+            long allocated = getAllocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                render(style, matrices, recording, config, entity, boss, icon, camera);
+            }
+            allocated = allocated < 0 ? -1 : (getAllocatedBytes() - allocated) / ITERATIONS;
+            lines.add(String.format(
+                    "%s: %d vertices, %d layer switches over %d layers, %d glyphs, %d instanced bars, %s per plate",
+                    id,
+                    recording.getVertexCount() / ITERATIONS,
+                    recording.getLayerSwitches() / ITERATIONS,
+                    recording.getLayerCount(),
+                    recording.getGlyphCount() / ITERATIONS,
+                    InstancedBarRenderer.getQueuedCount() / ITERATIONS,
+                    allocated < 0 ? "unknown bytes" : allocated + " bytes"
+            ));
+            recording.reset();
+            InstancedBarRenderer.discard();
+        }
+        return lines;
+    }
+
+    private static void render(UIStyle style,
+                               MatrixStack matrices,
+                               RecordingVertexConsumers recording,
+                               OrderlyConfig config,
+                               LivingEntity entity,
+                               boolean boss,
+                               ItemStack icon,
+                               Camera camera) {
+        recording.nextPlate();
+        if (boss) {
+            style.renderBossEntity(matrices, recording, camera, config, entity, LIGHT, icon);
+        } else {
+            style.renderEntity(matrices, recording, camera, config, entity, LIGHT, icon);
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or {@code -1} if the jvm does not track them
+     */
+    private static long getAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,47 @@
+package xyx.quigley.orderly.util;
+
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import xyx.quigley.orderly.mixin.BufferBuilderAccessor;
+
+import java.util.LinkedHashMap;
+
+/**
+ * vertex consumer provider that gives every render layer a buffer of its own, the first time the layer is used.
+ * <p>
+ * since no layer ever falls back to the shared buffer, switching between layers never forces a flush,
+ * and {@link #draw()} issues exactly one draw call per layer, in the order the layers were first used.
+ */
+public final class BatchedVertexConsumers extends VertexConsumerProvider.Immediate {
+
+    private static final int FALLBACK_BUFFER_SIZE = 256;
+
+    public BatchedVertexConsumers() {
+        super(new BufferBuilder(FALLBACK_BUFFER_SIZE), new LinkedHashMap<>());
+    }
+
+    @Override
+    public VertexConsumer getBuffer(RenderLayer layer) {
+        if (!layerBuffers.containsKey(layer)) {
+            layerBuffers.put(layer, new BufferBuilder(layer.getExpectedBufferSize()));
+        }
+        return super.getBuffer(layer);
+    }
+
+    public int getLayerCount() {
+        return layerBuffers.size();
+    }
+
+    /**
+     * @return the vertices written into the buffers since the last {@link #draw()}
+     */
+    public int getVertexCount() {
+        int count = 0;
+        for (var buffer : activeConsumers) {
+            count += ((BufferBuilderAccessor) buffer).orderly$getVertexCount();
+        }
+        return count;
+    }
+}
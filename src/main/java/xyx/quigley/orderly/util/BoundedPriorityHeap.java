@@ -0,0 +1,84 @@
+package xyx.quigley.orderly.util;
+
+import java.util.Arrays;
+
+/**
+ * keeps the {@code capacity} highest scored ids offered to it, in a min-heap of primitive arrays.
+ * <p>
+ * offering is {@code O(log capacity)}, and nothing is allocated once the arrays have grown to the capacity.
+ */
+public final class BoundedPriorityHeap {
+
+    private int[] ids = new int[16];
+    private float[] scores = new float[16];
+    private int size;
+    private int capacity;
+
+    /**
+     * empties the heap and sets how many ids it keeps
+     */
+    public void reset(int capacity) {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        this.capacity = capacity;
+        size = 0;
+    }
+
+    /**
+     * @return whether the id is kept, for now
+     */
+    public boolean offer(int id, float score) {
+        if (size < capacity) {
+            int i = size++;
+            // sift up
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+            return true;
+        }
+        if (capacity == 0 || score <= scores[0]) {
+            return false;
+        }
+        // replace the lowest score and sift down
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (scores[child] >= score) {
+                break;
+            }
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = id;
+        scores[i] = score;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the id at the given position, positions are in heap order, not sorted
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+}
@@ -0,0 +1,46 @@
+package xyx.quigley.orderly.util;
+
+/**
+ * the limits of the extended focus pick, and when the pick has to be repeated.
+ * <p>
+ * kept apart from {@code FocusTracker}, so it can be used without minecraft.
+ */
+public final class FocusMath {
+
+    /**
+     * how far beyond interaction reach the extended pick looks, in blocks
+     */
+    public static final double PICK_DISTANCE = 32.0D;
+    public static final double MOVE_THRESHOLD_SQ = 0.05D * 0.05D;
+    public static final float TURN_THRESHOLD = 0.5F;
+
+    private FocusMath() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * @param movedSq    the squared distance the view point moved since the last pick
+     * @param yawDelta   the yaw change since the last pick, in degrees, not wrapped
+     * @param pitchDelta the pitch change since the last pick, in degrees
+     * @return whether the view point moved or turned enough to look at something else
+     */
+    public static boolean hasViewChanged(double movedSq, float yawDelta, float pitchDelta) {
+        return movedSq > MOVE_THRESHOLD_SQ
+                || Math.abs(wrapDegrees(yawDelta)) > TURN_THRESHOLD
+                || Math.abs(pitchDelta) > TURN_THRESHOLD;
+    }
+
+    /**
+     * the same as {@code MathHelper#wrapDegrees(float)}
+     */
+    static float wrapDegrees(float degrees) {
+        float wrapped = degrees % 360.0F;
+        if (wrapped >= 180.0F) {
+            wrapped -= 360.0F;
+        }
+        if (wrapped < -180.0F) {
+            wrapped += 360.0F;
+        }
+        return wrapped;
+    }
+}
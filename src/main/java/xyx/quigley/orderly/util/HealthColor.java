@@ -0,0 +1,162 @@
+package xyx.quigley.orderly.util;
+
+/**
+ * the color of a health bar, computed from plain values only.
+ * <p>
+ * health colors come from lookup tables of {@link #TABLE_SIZE} argb entries, indexed by the quantized health
+ * fraction. table {@code 0} is the palette for all entities, further tables are the ones entity types are
+ * assigned to. kept free of minecraft classes so it can be benchmarked outside the game.
+ */
+public final class HealthColor {
+
+    public static final int TABLE_SIZE = 256;
+
+    /**
+     * red over yellow to green, the colors the bars always had
+     */
+    private static final int[] DEFAULT_TABLE = createDefaultTable();
+
+    private static volatile int[][] tables = {DEFAULT_TABLE};
+
+    private HealthColor() {
+        throw new IllegalStateException("util class");
+    }
+
+    public static int getColor(float health, float maxHealth, boolean monster, boolean colorByType, boolean boss) {
+        return getColor(health, maxHealth, monster, colorByType, boss, 0);
+    }
+
+    /**
+     * @param palette the table to take the health color from, unknown tables fall back to table {@code 0}
+     */
+    public static int getColor(float health,
+                               float maxHealth,
+                               boolean monster,
+                               boolean colorByType,
+                               boolean boss,
+                               int palette) {
+        if (colorByType) {
+            int r = 0;
+            int g = 255;
+            int b = 0;
+            if (boss) {
+                r = 128;
+                g = 0;
+                b = 128;
+            }
+            if (monster) {
+                r = 255;
+                g = 0;
+                b = 0;
+            }
+            return 0xff000000 | r << 16 | g << 8 | b;
+        }
+        var current = tables;
+        var table = palette > 0 && palette < current.length ? current[palette] : current[0];
+        return table[getIndex(health, maxHealth)];
+    }
+
+    /**
+     * replaces all tables, the array must not be changed afterwards
+     */
+    public static void setTables(int[][] tables) {
+        HealthColor.tables = tables;
+    }
+
+    public static int[] getDefaultTable() {
+        return DEFAULT_TABLE.clone();
+    }
+
+    /**
+     * spreads the colors evenly over a table, from the one for no health to the one for full health
+     *
+     * @param stops rgb colors, at least one
+     */
+    public static int[] createTable(int[] stops) {
+        var table = new int[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            float position = (float) i / (TABLE_SIZE - 1) * (stops.length - 1);
+            int from = Math.min((int) position, stops.length - 1);
+            int to = Math.min(from + 1, stops.length - 1);
+            float delta = position - from;
+            table[i] = 0xff000000
+                    | lerp(delta, stops[from] >> 16, stops[to] >> 16) << 16
+                    | lerp(delta, stops[from] >> 8, stops[to] >> 8) << 8
+                    | lerp(delta, stops[from], stops[to]);
+        }
+        return table;
+    }
+
+    private static int getIndex(float health, float maxHealth) {
+        float fraction = health / maxHealth;
+        // also catches NaN
+        if (!(fraction > 0.0F)) {
+            return 0;
+        }
+        if (fraction >= 1.0F) {
+            return TABLE_SIZE - 1;
+        }
+        return (int) (fraction * (TABLE_SIZE - 1) + 0.5F);
+    }
+
+    private static int lerp(float delta, int from, int to) {
+        from &= 0xFF;
+        to &= 0xFF;
+        return (int) (from + (to - from) * delta + 0.5F);
+    }
+
+    private static int[] createDefaultTable() {
+        var table = new int[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            float hue = Math.max(0.0F, ((float) i / (TABLE_SIZE - 1)) / 3.0F - 0.07F);
+            table[i] = hueToRgb(hue);
+        }
+        return table;
+    }
+
+    /**
+     * {@code Color.HSBtoRGB(hue, 1.0F, 1.0F)}
+     */
+    private static int hueToRgb(float hue) {
+        float h = (hue - (float) Math.floor(hue)) * 6.0F;
+        float f = h - (float) Math.floor(h);
+        int q = (int) ((1.0F - f) * 255.0F + 0.5F);
+        int t = (int) ((1.0F - (1.0F - f)) * 255.0F + 0.5F);
+        int r;
+        int g;
+        int b;
+        switch ((int) h) {
+            case 0 -> {
+                r = 255;
+                g = t;
+                b = 0;
+            }
+            case 1 -> {
+                r = q;
+                g = 255;
+                b = 0;
+            }
+            case 2 -> {
+                r = 0;
+                g = 255;
+                b = t;
+            }
+            case 3 -> {
+                r = 0;
+                g = q;
+                b = 255;
+            }
+            case 4 -> {
+                r = t;
+                g = 0;
+                b = 255;
+            }
+            default -> {
+                r = 255;
+                g = 0;
+                b = q;
+            }
+        }
+        return 0xff000000 | r << 16 | g << 8 | b;
+    }
+}
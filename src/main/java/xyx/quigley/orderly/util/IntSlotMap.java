@@ -0,0 +1,142 @@
+package xyx.quigley.orderly.util;
+
+import java.util.Arrays;
+
+/**
+ * maps int keys to non-negative int values, in an open addressing table with linear probing.
+ * <p>
+ * keys and values live in two primitive arrays, removals shift the following entries back instead of leaving
+ * tombstones, so lookups never get slower over time. nothing is allocated unless the table grows.
+ */
+public final class IntSlotMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expected how many entries the map holds without growing
+     */
+    public IntSlotMap(int expected) {
+        // keep the table at most half full
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return the value of the key, {@code -1} if there is none
+     */
+    public int get(int key) {
+        int pos = mix(key) & mask;
+        while (values[pos] != EMPTY) {
+            if (keys[pos] == key) {
+                return values[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @param value must not be negative
+     */
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value " + value);
+        }
+        int pos = mix(key) & mask;
+        while (values[pos] != EMPTY) {
+            if (keys[pos] == key) {
+                values[pos] = value;
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * @return the value the key had, {@code -1} if there was none
+     */
+    public int remove(int key) {
+        int pos = mix(key) & mask;
+        while (values[pos] != EMPTY) {
+            if (keys[pos] == key) {
+                int value = values[pos];
+                size--;
+                shiftBack(pos);
+                return value;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * closes the gap at {@code pos} by moving back every following entry that would not be found past it
+     */
+    private void shiftBack(int pos) {
+        while (true) {
+            int last = pos;
+            int home;
+            while (true) {
+                pos = (pos + 1) & mask;
+                if (values[pos] == EMPTY) {
+                    values[last] = EMPTY;
+                    return;
+                }
+                home = mix(keys[pos]) & mask;
+                // the entry may move to last when its home is not cyclically within (last, pos]
+                if (last <= pos ? last >= home || home > pos : last >= home && home > pos) {
+                    break;
+                }
+            }
+            keys[last] = keys[pos];
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int pos = mix(oldKeys[i]) & mask;
+                while (values[pos] != EMPTY) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
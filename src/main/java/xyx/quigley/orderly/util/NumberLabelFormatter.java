@@ -0,0 +1,126 @@
+package xyx.quigley.orderly.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * formats a float the way {@code String.format("%.2f", value)} does, with a trailing {@code .00} dropped,
+ * between a fixed prefix and suffix.
+ * <p>
+ * labels are cached, whole and half values below {@link #HALF_STEP_LIMIT} get a slot of their own,
+ * everything else shares a small direct mapped cache. on a miss the digits are written into a reused
+ * char buffer, no regex or {@link java.util.Formatter} involved.
+ * <p>
+ * not thread safe, every instance must only be used from a single thread.
+ */
+public final class NumberLabelFormatter {
+
+    private static final int HALF_STEP_LIMIT = 1024;
+    private static final int HASHED_SLOTS = 256;
+    /**
+     * above this the hundredths no longer fit into a long
+     */
+    private static final float FAST_PATH_LIMIT = 1.0E15F;
+
+    private final String prefix;
+    private final String suffix;
+    private final String[] halfSteps = new String[HALF_STEP_LIMIT * 2];
+    private final int[] hashedKeys = new int[HASHED_SLOTS];
+    private final String[] hashedValues = new String[HASHED_SLOTS];
+    private final char[] buffer = new char[64];
+
+    private Locale locale;
+    private char decimalSeparator;
+    private char zeroDigit;
+
+    public NumberLabelFormatter(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        updateLocale(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public String format(float value) {
+        var current = Locale.getDefault(Locale.Category.FORMAT);
+        if (current != locale) {
+            updateLocale(current);
+        }
+        float doubled = value * 2.0F;
+        if (doubled >= 0.0F && doubled < halfSteps.length && doubled == (int) doubled
+                && Float.floatToRawIntBits(value) != Float.floatToRawIntBits(-0.0F)) {
+            int index = (int) doubled;
+            var label = halfSteps[index];
+            if (label == null) {
+                label = build(value);
+                halfSteps[index] = label;
+            }
+            return label;
+        }
+        int bits = Float.floatToRawIntBits(value);
+        int slot = (bits ^ (bits >>> 16)) & (HASHED_SLOTS - 1);
+        var label = hashedValues[slot];
+        if (label == null || hashedKeys[slot] != bits) {
+            label = build(value);
+            hashedKeys[slot] = bits;
+            hashedValues[slot] = label;
+        }
+        return label;
+    }
+
+    private String build(float value) {
+        if (!Float.isFinite(value) || Math.abs(value) >= FAST_PATH_LIMIT) {
+            // NaN and infinity are printed as words, and huge values are not worth a fast path
+            var label = String.format(locale, "%.2f", value);
+            if (decimalSeparator == '.' && label.endsWith(".00")) {
+                label = label.substring(0, label.length() - 3);
+            }
+            return prefix + label + suffix;
+        }
+        int length = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            buffer[length++] = prefix.charAt(i);
+        }
+        // the Formatter keeps the sign of -0.0 as well
+        if (Double.compare(value, 0.0D) < 0) {
+            buffer[length++] = '-';
+        }
+        // BigDecimal#valueOf uses the same shortest decimal representation as the Formatter does before rounding
+        long hundredths = BigDecimal.valueOf(Math.abs((double) value))
+                .setScale(2, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+        long integral = hundredths / 100;
+        int fraction = (int) (hundredths % 100);
+        int start = length;
+        do {
+            buffer[length++] = (char) (zeroDigit + (integral % 10));
+            integral /= 10;
+        } while (integral > 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+        // only a '.' separator gets trimmed, localized separators never matched the old pattern either
+        if (fraction != 0 || decimalSeparator != '.') {
+            buffer[length++] = decimalSeparator;
+            buffer[length++] = (char) (zeroDigit + fraction / 10);
+            buffer[length++] = (char) (zeroDigit + fraction % 10);
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            buffer[length++] = suffix.charAt(i);
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private void updateLocale(Locale newLocale) {
+        var symbols = DecimalFormatSymbols.getInstance(newLocale);
+        locale = newLocale;
+        decimalSeparator = symbols.getDecimalSeparator();
+        zeroDigit = symbols.getZeroDigit();
+        Arrays.fill(halfSteps, null);
+        Arrays.fill(hashedValues, null);
+    }
+}
@@ -0,0 +1,87 @@
+package xyx.quigley.orderly.util;
+
+import java.util.Arrays;
+
+/**
+ * picks the plates drawn in a frame when there are more candidates than the budget allows.
+ * <p>
+ * most of the budget goes to the highest priorities, at least one plate, so the highest priority is always drawn.
+ * the rest rotates through the remaining candidates in entity id order from frame to frame, so every plate gets
+ * drawn eventually, no matter in which order the candidates are offered.
+ */
+public final class PlateBudget {
+
+    /**
+     * one in this many plates of the budget is handed out round robin
+     */
+    private static final int ROUND_ROBIN_SHARE = 4;
+
+    private final BoundedPriorityHeap heap = new BoundedPriorityHeap();
+    private boolean[] selected = new boolean[64];
+    private int[] ids = new int[64];
+    // entity id in the high and candidate index in the low half
+    private long[] rotation = new long[64];
+    private int count;
+    private int rotating;
+    /**
+     * the entity id that got the last round robin plate
+     */
+    private int cursor = Integer.MIN_VALUE;
+
+    /**
+     * starts picking from the given number of candidates, which are offered next
+     */
+    public void begin(int count, int budget) {
+        if (selected.length < count) {
+            int length = Math.max(count, selected.length * 2);
+            selected = new boolean[length];
+            ids = new int[length];
+            rotation = new long[length];
+        }
+        Arrays.fill(selected, 0, count, false);
+        this.count = count;
+        rotating = budget > 1 ? Math.max(1, budget / ROUND_ROBIN_SHARE) : 0;
+        heap.reset(budget - rotating);
+    }
+
+    /**
+     * @param index the index of the candidate, from {@code 0} to the count passed to {@link #begin(int, int)}
+     */
+    public void offer(int index, int entityId, float priority) {
+        ids[index] = entityId;
+        heap.offer(index, priority);
+    }
+
+    /**
+     * picks the plates once all candidates are offered
+     */
+    public void select() {
+        for (int i = 0; i < heap.size(); i++) {
+            selected[heap.getId(i)] = true;
+        }
+        if (rotating == 0) {
+            return;
+        }
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            if (!selected[i]) {
+                rotation[pending++] = (long) ids[i] << 32 | i;
+            }
+        }
+        Arrays.sort(rotation, 0, pending);
+        // continue after the entity that got the last round robin plate, wrapping around to the lowest id
+        int start = 0;
+        while (start < pending && (int) (rotation[start] >> 32) <= cursor) {
+            start++;
+        }
+        for (int i = 0; i < Math.min(rotating, pending); i++) {
+            long entry = rotation[(start + i) % pending];
+            selected[(int) entry] = true;
+            cursor = (int) (entry >> 32);
+        }
+    }
+
+    public boolean isSelected(int index) {
+        return selected[index];
+    }
+}
@@ -0,0 +1,141 @@
+package xyx.quigley.orderly.util;
+
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.util.math.Matrix4f;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * vertex consumer provider that draws nothing and only counts what is written into it: vertices, render layers,
+ * switches between layers and text glyphs.
+ * <p>
+ * glyphs are the quads written into a text layer, told apart from other layers by their vertex format.
+ */
+public final class RecordingVertexConsumers extends VertexConsumerProvider.Immediate implements VertexConsumer {
+
+    private final Set<RenderLayer> layers = new HashSet<>();
+    private RenderLayer lastLayer;
+    private int vertexCount;
+    private int layerSwitches;
+    private boolean textLayer;
+    private int textVertexCount;
+
+    public RecordingVertexConsumers() {
+        // nothing is ever drawn, so there is no need for a fallback buffer and its native memory
+        super(null, new HashMap<>());
+    }
+
+    public void reset() {
+        layers.clear();
+        lastLayer = null;
+        vertexCount = 0;
+        layerSwitches = 0;
+        textLayer = false;
+        textVertexCount = 0;
+    }
+
+    /**
+     * starts counting layer switches for the next plate, so the first layer it requests counts as a switch
+     */
+    public void nextPlate() {
+        lastLayer = null;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getLayerCount() {
+        return layers.size();
+    }
+
+    /**
+     * how often the requested layer differed from the one before, the first request counts as well
+     */
+    public int getLayerSwitches() {
+        return layerSwitches;
+    }
+
+    /**
+     * the quads written into text layers, one per glyph
+     */
+    public int getGlyphCount() {
+        return textVertexCount / 4;
+    }
+
+    @Override
+    public VertexConsumer getBuffer(RenderLayer layer) {
+        if (layer != lastLayer) {
+            lastLayer = layer;
+            layerSwitches++;
+            layers.add(layer);
+            textLayer = layer.getVertexFormat() == VertexFormats.POSITION_COLOR_TEXTURE_LIGHT;
+        }
+        return this;
+    }
+
+    @Override
+    public void draw() {
+    }
+
+    @Override
+    public void draw(RenderLayer layer) {
+    }
+
+    @Override
+    public VertexConsumer vertex(double x, double y, double z) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer vertex(Matrix4f matrix, float x, float y, float z) {
+        // the positions are not recorded, so skip the transform and its vector
+        return this;
+    }
+
+    @Override
+    public VertexConsumer color(int red, int green, int blue, int alpha) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer texture(float u, float v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer overlay(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer light(int u, int v) {
+        return this;
+    }
+
+    @Override
+    public VertexConsumer normal(float x, float y, float z) {
+        return this;
+    }
+
+    @Override
+    public void next() {
+        vertexCount++;
+        if (textLayer) {
+            textVertexCount++;
+        }
+    }
+
+    @Override
+    public void fixedColor(int red, int green, int blue, int alpha) {
+    }
+
+    @Override
+    public void unfixColor() {
+    }
+}
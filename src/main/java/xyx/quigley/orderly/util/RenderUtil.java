@@ -5,9 +5,7 @@ import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.mob.Monster;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
-import net.minecraft.util.math.MathHelper;
-
-import java.awt.*;
+import xyx.quigley.orderly.config.EntityTypeFlags;
 
 public final class RenderUtil {
 
@@ -35,26 +33,28 @@ public final class RenderUtil {
     }
 
     public static int getColor(LivingEntity entity, boolean colorByType, boolean boss) {
-        if (colorByType) {
-            int r = 0;
-            int g = 255;
-            int b = 0;
-            if (boss) {
-                r = 128;
-                g = 0;
-                b = 128;
-            }
-            if (entity instanceof Monster) { //MobEntity is a red herring
-                r = 255;
-                g = 0;
-                b = 0;
-            }
-            return 0xff000000 | r << 16 | g << 8 | b;
-        } else {
-            float health = MathHelper.clamp(entity.getHealth(), 0.0F, entity.getMaxHealth());
-            float hue = Math.max(0.0F, (health / entity.getMaxHealth()) / 3.0F - 0.07F);
-            return Color.HSBtoRGB(hue, 1.0F, 1.0F);
-        }
+        return getColor(
+                entity.getHealth(),
+                entity.getMaxHealth(),
+                entity instanceof Monster, //MobEntity is a red herring
+                colorByType,
+                boss,
+                EntityTypeFlags.getPalette(entity.getType())
+        );
+    }
+
+    /**
+     * only works on plain values, so it can be called from any thread
+     *
+     * @param palette the health color palette, see {@link EntityTypeFlags#getPalette}
+     */
+    public static int getColor(float health,
+                               float maxHealth,
+                               boolean monster,
+                               boolean colorByType,
+                               boolean boss,
+                               int palette) {
+        return HealthColor.getColor(health, maxHealth, monster, colorByType, boss, palette);
     }
 
     public static int getAlpha(int argb) {
@@ -0,0 +1,59 @@
+package xyx.quigley.orderly.util;
+
+import java.util.Arrays;
+
+/**
+ * the last {@code capacity} latency samples, in nanoseconds, in a preallocated ring.
+ * <p>
+ * recording is a single array store, percentiles are only computed when they are asked for.
+ */
+public final class RollingLatency {
+
+    private final long[] samples;
+    private int next;
+    private long total;
+
+    public RollingLatency(int capacity) {
+        samples = new long[capacity];
+    }
+
+    public void record(long nanos) {
+        samples[next] = nanos;
+        next = next + 1 == samples.length ? 0 : next + 1;
+        total++;
+    }
+
+    /**
+     * @return how many samples were recorded in total, including the ones that already left the window
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return a sorted copy of the samples in the window
+     */
+    public long[] getSortedSamples() {
+        var sorted = Arrays.copyOf(samples, (int) Math.min(total, samples.length));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @param sorted   samples as returned by {@link #getSortedSamples()}
+     * @param fraction the percentile, as a fraction between 0 and 1
+     * @return the nearest rank percentile, or {@code 0} for no samples
+     */
+    public static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    public void clear() {
+        next = 0;
+        total = 0;
+    }
+}
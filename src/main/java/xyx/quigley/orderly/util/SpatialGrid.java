@@ -0,0 +1,158 @@
+package xyx.quigley.orderly.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMaps;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * uniform grid of cubic cells, used to look up objects near a point without scanning all of them.
+ * the grid only knows which cell an object was last placed in, exact distance checks are up to the caller.
+ */
+public final class SpatialGrid<T> {
+
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private final int cellShift;
+    private final Object2LongOpenHashMap<T> cellOf = new Object2LongOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<ArrayList<T>> cells = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * @param cellShift cell edge length as a power of two, i.e. {@code 4} for 16 block cells
+     */
+    public SpatialGrid(int cellShift) {
+        this.cellShift = cellShift;
+    }
+
+    public void insert(T value, double x, double y, double z) {
+        long key = cellKey(x, y, z);
+        if (cellOf.containsKey(value)) {
+            move(value, key);
+            return;
+        }
+        cellOf.put(value, key);
+        bucket(key).add(value);
+    }
+
+    public boolean remove(T value) {
+        if (!cellOf.containsKey(value)) {
+            return false;
+        }
+        removeFromCell(value, cellOf.removeLong(value));
+        return true;
+    }
+
+    /**
+     * re-buckets every object whose position moved it into a different cell
+     */
+    public void relocateAll(PositionReader<? super T> positions) {
+        var it = Object2LongMaps.fastIterator(cellOf);
+        while (it.hasNext()) {
+            Object2LongMap.Entry<T> entry = it.next();
+            var value = entry.getKey();
+            long key = cellKey(positions.x(value), positions.y(value), positions.z(value));
+            long old = entry.getLongValue();
+            if (key != old) {
+                removeFromCell(value, old);
+                bucket(key).add(value);
+                entry.setValue(key);
+            }
+        }
+    }
+
+    /**
+     * passes every object in a cell touched by the cube of the given radius around the center to the consumer
+     */
+    public void query(double x, double y, double z, double radius, Consumer<? super T> consumer) {
+        int minX = cell(x - radius);
+        int minY = cell(y - radius);
+        int minZ = cell(z - radius);
+        int maxX = cell(x + radius);
+        int maxY = cell(y + radius);
+        int maxZ = cell(z + radius);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                for (int cy = minY; cy <= maxY; cy++) {
+                    var bucket = cells.get(pack(cx, cy, cz));
+                    if (bucket != null) {
+                        //noinspection ForLoopReplaceableByForEach avoid the iterator allocation
+                        for (int i = 0; i < bucket.size(); i++) {
+                            consumer.accept(bucket.get(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void forEach(Consumer<? super T> consumer) {
+        cellOf.keySet().forEach(consumer);
+    }
+
+    public int size() {
+        return cellOf.size();
+    }
+
+    public void clear() {
+        cellOf.clear();
+        cells.clear();
+    }
+
+    private void move(T value, long key) {
+        long old = cellOf.put(value, key);
+        if (old != key) {
+            removeFromCell(value, old);
+            bucket(key).add(value);
+        }
+    }
+
+    private ArrayList<T> bucket(long key) {
+        var bucket = cells.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(4);
+            cells.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private void removeFromCell(T value, long key) {
+        var bucket = cells.get(key);
+        if (bucket == null) {
+            return;
+        }
+        int index = bucket.indexOf(value);
+        if (index >= 0) {
+            // order inside a cell does not matter, so swap the last element in instead of shifting
+            int last = bucket.size() - 1;
+            bucket.set(index, bucket.get(last));
+            bucket.remove(last);
+        }
+        if (bucket.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private int cell(double coord) {
+        return ((int) Math.floor(coord)) >> cellShift;
+    }
+
+    private long cellKey(double x, double y, double z) {
+        return pack(cell(x), cell(y), cell(z));
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((x & COORD_MASK) << (2 * COORD_BITS)) | ((z & COORD_MASK) << COORD_BITS) | (y & COORD_MASK);
+    }
+
+    public interface PositionReader<T> {
+        double x(T value);
+
+        double y(T value);
+
+        double z(T value);
+    }
+}
@@ -0,0 +1,71 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.text.OrderedText;
+import net.minecraft.util.math.Matrix4f;
+
+/**
+ * a text renderer without any fonts, every char is {@link #CHAR_WIDTH} wide and draws nothing, it only counts how
+ * often it is asked to draw.
+ */
+final class CountingTextRenderer extends TextRenderer {
+
+    static final int CHAR_WIDTH = 6;
+
+    private int draws;
+
+    CountingTextRenderer() {
+        super(id -> null);
+    }
+
+    @Override
+    public int draw(String text,
+                    float x,
+                    float y,
+                    int color,
+                    boolean shadow,
+                    Matrix4f matrix,
+                    VertexConsumerProvider vertexConsumers,
+                    boolean seeThrough,
+                    int backgroundColor,
+                    int light) {
+        draws++;
+        return (int) x + getWidth(text);
+    }
+
+    @Override
+    public int draw(OrderedText text,
+                    float x,
+                    float y,
+                    int color,
+                    boolean shadow,
+                    Matrix4f matrix,
+                    VertexConsumerProvider vertexConsumers,
+                    boolean seeThrough,
+                    int backgroundColor,
+                    int light) {
+        draws++;
+        // measuring would allocate a visitor, the end of the text is not used by the styles
+        return (int) x;
+    }
+
+    @Override
+    public int getWidth(String text) {
+        return text.length() * CHAR_WIDTH;
+    }
+
+    @Override
+    public int getWidth(OrderedText text) {
+        var chars = new int[1];
+        text.accept((index, style, codePoint) -> {
+            chars[0]++;
+            return true;
+        });
+        return chars[0] * CHAR_WIDTH;
+    }
+
+    int getDraws() {
+        return draws;
+    }
+}
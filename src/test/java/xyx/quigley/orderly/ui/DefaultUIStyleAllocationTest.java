@@ -0,0 +1,74 @@
+package xyx.quigley.orderly.ui;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import xyx.quigley.orderly.config.OrderlyConfigImpl;
+import xyx.quigley.orderly.util.RecordingVertexConsumers;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * checks that drawing the bars and the icon row of a plate allocates nothing once warmed up.
+ * <p>
+ * text is drawn by a {@link CountingTextRenderer}, so the glyph handling of the vanilla text renderer is not
+ * covered. known allocations that are still out of scope:
+ * <ul>
+ *     <li>{@code TextRenderer#draw}, which allocates a glyph drawer and style lookups for every string</li>
+ *     <li>the debug id label, formatted with {@code String.format} while debug info is shown</li>
+ *     <li>a number label the first time its value is formatted, later draws hit its cache</li>
+ *     <li>the camera billboard matrices, rebuilt whenever the camera turns</li>
+ *     <li>a name layout whenever the name, team or language changes</li>
+ *     <li>growing the vertex array of a plate mesh the first time it records a larger plate</li>
+ * </ul>
+ */
+class DefaultUIStyleAllocationTest {
+
+    private static final int WARM_UP = 20_000;
+    private static final int ITERATIONS = 10_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void setUp() {
+        PlateFixture.setIcons();
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            threads = bean;
+        }
+    }
+
+    @Test
+    void plateAllocatesNothingPerBar() {
+        assumeTrue(threads != null, "the jvm does not count allocated bytes per thread");
+        var style = new DefaultUIStyle();
+        var recording = new RecordingVertexConsumers();
+        var textRenderer = new CountingTextRenderer();
+        var config = new OrderlyConfigImpl();
+        var nameLayout = PlateFixture.nameLayout(textRenderer);
+        for (int i = 0; i < WARM_UP; i++) {
+            render(style, recording, textRenderer, config, nameLayout);
+        }
+        recording.reset();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            render(style, recording, textRenderer, config, nameLayout);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(0, allocated / ITERATIONS, "bytes allocated per bar");
+        // make sure the whole plate was drawn
+        assertEquals(ITERATIONS * (PlateFixture.BAR_QUADS + PlateFixture.ICON_QUADS) * 4, recording.getVertexCount());
+    }
+
+    private static void render(DefaultUIStyle style,
+                               RecordingVertexConsumers recording,
+                               CountingTextRenderer textRenderer,
+                               OrderlyConfigImpl config,
+                               NameLayoutCache.NameLayout nameLayout) {
+        recording.nextPlate();
+        PlateFixture.render(style, recording, textRenderer, config, nameLayout, true, null, DefaultUIStyle.Detail.FULL);
+    }
+}
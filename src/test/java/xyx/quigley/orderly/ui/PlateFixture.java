@@ -0,0 +1,83 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Matrix3f;
+import net.minecraft.util.math.Matrix4f;
+import xyx.quigley.orderly.api.config.OrderlyConfig;
+
+import javax.annotation.Nullable;
+
+/**
+ * the plate the style tests draw: a zombie at 15 of 20 health with an attribute icon and 7 armor, which the icon
+ * row draws as 2 single and 1 grouped icon.
+ */
+final class PlateFixture {
+
+    static final int LIGHT = 0xF000F0;
+    /**
+     * the bar background, the health background and the health bar
+     */
+    static final int BAR_QUADS = 3;
+    /**
+     * the attribute icon and 3 armor icons
+     */
+    static final int ICON_QUADS = 4;
+
+    private static final Matrix4f MODEL = new Matrix4f();
+    private static final Matrix3f NORMAL = new Matrix3f();
+
+    static {
+        MODEL.loadIdentity();
+        NORMAL.loadIdentity();
+    }
+
+    private PlateFixture() {
+        throw new IllegalStateException("util class");
+    }
+
+    /**
+     * a single point icon, a grouped one and an attribute icon
+     */
+    static void setIcons() {
+        IconRegistry.setIcons(new float[]{
+                0.0F, 0.0F, 0.25F, 0.25F,
+                0.25F, 0.0F, 0.5F, 0.25F,
+                0.5F, 0.0F, 0.75F, 0.25F
+        }, 0, 1);
+    }
+
+    static NameLayoutCache.NameLayout nameLayout(CountingTextRenderer textRenderer) {
+        return NameLayoutCache.of(new LiteralText("Zombie"), textRenderer, 0.5F);
+    }
+
+    static void render(DefaultUIStyle style,
+                       VertexConsumerProvider vertexConsumers,
+                       CountingTextRenderer textRenderer,
+                       OrderlyConfig config,
+                       NameLayoutCache.NameLayout nameLayout,
+                       boolean bars,
+                       @Nullable Identifier debugId,
+                       DefaultUIStyle.Detail detail) {
+        style.renderPlate(
+                MODEL,
+                NORMAL,
+                vertexConsumers,
+                textRenderer,
+                config,
+                nameLayout,
+                25.0F,
+                15.0F,
+                20.0F,
+                7,
+                null,
+                0xFF00FF00,
+                2,
+                LIGHT,
+                bars,
+                debugId,
+                detail
+        );
+    }
+}
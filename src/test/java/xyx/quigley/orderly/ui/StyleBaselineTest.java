@@ -0,0 +1,83 @@
+package xyx.quigley.orderly.ui;
+
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import xyx.quigley.orderly.config.OrderlyConfigImpl;
+import xyx.quigley.orderly.util.RecordingVertexConsumers;
+
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static xyx.quigley.orderly.ui.PlateFixture.BAR_QUADS;
+import static xyx.quigley.orderly.ui.PlateFixture.ICON_QUADS;
+
+/**
+ * the vertices, layer switches and text draws of one {@link PlateFixture} plate of the default style, with the
+ * default config.
+ * <p>
+ * a change of these numbers is a change of what the style draws, update them only on purpose.
+ */
+class StyleBaselineTest {
+
+    private static final int PLATES = 8;
+
+    private final RecordingVertexConsumers recording = new RecordingVertexConsumers();
+    private final CountingTextRenderer textRenderer = new CountingTextRenderer();
+    private final OrderlyConfigImpl config = new OrderlyConfigImpl();
+
+    @BeforeAll
+    static void setUp() {
+        PlateFixture.setIcons();
+    }
+
+    @Test
+    void full() {
+        // the name and the three labels
+        assertBaseline(DefaultUIStyle.Detail.FULL, true, null, (BAR_QUADS + ICON_QUADS) * 4, 2, 4);
+    }
+
+    @Test
+    void fullDebug() {
+        var debugId = new Identifier("minecraft", "zombie");
+        assertBaseline(DefaultUIStyle.Detail.FULL, true, debugId, (BAR_QUADS + ICON_QUADS) * 4, 2, 5);
+    }
+
+    @Test
+    void fullInstanced() {
+        // the bars are queued for the instanced renderer instead
+        assertBaseline(DefaultUIStyle.Detail.FULL, false, null, ICON_QUADS * 4, 1, 4);
+    }
+
+    @Test
+    void name() {
+        assertBaseline(DefaultUIStyle.Detail.NAME, true, null, BAR_QUADS * 4, 1, 1);
+    }
+
+    @Test
+    void bar() {
+        assertBaseline(DefaultUIStyle.Detail.BAR, true, null, BAR_QUADS * 4, 1, 0);
+    }
+
+    @Test
+    void dot() {
+        assertBaseline(DefaultUIStyle.Detail.DOT, true, null, 4, 1, 0);
+    }
+
+    private void assertBaseline(DefaultUIStyle.Detail detail,
+                                boolean bars,
+                                @Nullable Identifier debugId,
+                                int vertices,
+                                int layerSwitches,
+                                int textDraws) {
+        var style = new DefaultUIStyle();
+        var nameLayout = PlateFixture.nameLayout(textRenderer);
+        for (int i = 0; i < PLATES; i++) {
+            recording.nextPlate();
+            PlateFixture.render(style, recording, textRenderer, config, nameLayout, bars, debugId, detail);
+        }
+        assertEquals(PLATES * vertices, recording.getVertexCount(), "vertices");
+        assertEquals(PLATES * layerSwitches, recording.getLayerSwitches(), "layer switches");
+        assertEquals(PLATES * textDraws, textRenderer.getDraws(), "text draws");
+    }
+}